@@ -1,29 +1,45 @@
 package fr.wonder.commons.systems.argparser;
 
-import java.lang.reflect.Field;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.PrintStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
-import fr.wonder.commons.exceptions.ErrorWrapper;
 import fr.wonder.commons.exceptions.ErrorWrapper.WrappedException;
 import fr.wonder.commons.files.FilesUtils;
+import fr.wonder.commons.systems.argparser.ArgParserTimings.Phase;
 import fr.wonder.commons.systems.argparser.annotations.Argument;
+import fr.wonder.commons.systems.argparser.annotations.Cacheable;
 import fr.wonder.commons.systems.argparser.annotations.EntryPoint;
+import fr.wonder.commons.systems.argparser.annotations.FanOut;
+import fr.wonder.commons.systems.argparser.annotations.Limits;
 import fr.wonder.commons.systems.argparser.annotations.Option;
 import fr.wonder.commons.systems.argparser.annotations.OptionClass;
 import fr.wonder.commons.systems.argparser.annotations.ProcessDoc;
-import fr.wonder.commons.systems.reflection.ReflectUtils;
 import fr.wonder.commons.tests.ProcessArguments;
 import fr.wonder.commons.utils.ArrayOperator;
 import fr.wonder.commons.utils.StringUtils;
@@ -64,6 +80,12 @@ import fr.wonder.commons.utils.StringUtils;
  * entry point path.</li>
  * <li>Boolean short options can be combined ({@code -a -b} can be shortened to
  * {@code -ab}.</li>
+ * <li>When enabled with {@link #setArgumentFilesEnabled(boolean)}, an
+ * {@code @file} argument is replaced by the arguments listed in the file,
+ * separated by whitespace or line breaks and quoted like the arguments of
+ * {@link #run(String)}. Use {@code @@} to pass an argument starting with
+ * {@code @}. Files are read in chunks, they can hold millions of
+ * arguments.</li>
  * </ul>
  * 
  * <p>
@@ -76,8 +98,15 @@ import fr.wonder.commons.utils.StringUtils;
  * <ul>
  * <li>See {@link EntryPoint} and {@link Argument} annotations.</li>
  * <li>Supported argument types are {@code String}, all native types (int,
- * float...), all wrapped native types (Integer, Float...), {@code File} and any
- * {@code enum} type.</li>
+ * float...), all wrapped native types (Integer, Float...), {@code File},
+ * {@code Path} and any {@code enum} type.</li>
+ * <li>The last parameter may also be a {@code Stream<String>} or an
+ * {@code Iterator<String>} of lines, or a {@code ReadableByteChannel}. It is
+ * bound to the file given as argument or to the standard input if the argument
+ * is omitted or is {@code -}, and read lazily.</li>
+ * <li>{@code File} arguments are canonicalized when the command is read,
+ * {@code Path} arguments are only made absolute and can be resolved lazily
+ * by the entry point.</li>
  * </ul>
  * 
  * <p>
@@ -114,6 +143,23 @@ import fr.wonder.commons.utils.StringUtils;
  * {@link ProcessDoc} can be used on the class containing the entry points to
  * define the documentation that will be printed when asking for help.
  * <p>
+ * {@link Cacheable} can be used on entry points that only query data, their
+ * results are then reused when they are run again with the same arguments.
+ * <p>
+ * {@link FanOut} entry points take any number of values for their last
+ * parameter and are run once per value, in parallel. They return a
+ * {@link FanOutResult} holding the outcome of each run.
+ * <p>
+ * {@link Limits} bounds the duration and the number of concurrent executions
+ * of an entry point, commands can also be given a time limit with
+ * {@link #execute(ParsedCommand, long, TimeUnit)} or cancelled through
+ * {@link #runAsync(String[])}. Cancellation interrupts the thread running the
+ * entry point.
+ * <p>
+ * Large programs can spread their entry points over many classes listed in an
+ * {@link EntryPointIndex}, classes are then only loaded when a command needs
+ * them.
+ * <p>
  * All classes, entry point methods and option classes must be <b>public static</b>,
  * option fields must be {@code public} and not {@code final}. When working with
  * modules make sure that your packages are {@code open}. If any of these is not
@@ -121,20 +167,89 @@ import fr.wonder.commons.utils.StringUtils;
  */
 public class ArgParser {
 
-	private final Class<?> entryPointClass;
+	/** finds the caller of {@link #runHere(String[])} without capturing a stack trace */
+	private static final StackWalker CALLER_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+	
 	private final String progName;
+	/** loader of the classes mounted from an index, {@code null} if entry points are all declared by a single class */
+	private final ClassLoader mountsLoader;
+	private final ProcessDoc doc;
 	
 	private final Branch treeRoot = new Branch();
 	private final Map<Class<?>, ProcessOptions> optionClasses = new HashMap<>();
-	private final Map<String, Boolean> optionsTakingArguments = new HashMap<>();
+	/** where help is printed, {@code null} to use the current {@code System.out} */
+	private final PrintStream out;
+	/** rendered help and usage texts */
+	private final Map<EntryPointFunction, String> helpCache = new ConcurrentHashMap<>();
+	private final Map<EntryPointFunction, String> usageCache = new ConcurrentHashMap<>();
+	private volatile String rootHelp;
+	
+	/** values of options not given on the command line, {@code null} if there are no option sources */
+	private volatile LayeredOptions optionLayers;
+	/** whether {@code @file} arguments are expanded, see {@link #setArgumentFilesEnabled(boolean)} */
+	private volatile boolean argumentFiles;
+	/** where phase timings are recorded, {@code null} when not instrumented */
+	private volatile ArgParserTimings timings;
+	/** duration of the constructor reflection, recorded when timings are attached */
+	private final long populateNanos;
 	
-	// TODO have the output stream be a constructor argument
 	// TODO varargs, options lists
 	
 	public ArgParser(String progName, Class<?> entryPointClass) throws InvalidDeclarationError {
+		this(progName, entryPointClass, null);
+	}
+	
+	/**
+	 * Creates a parser printing help and usage messages to {@code out}, which
+	 * should be buffered as messages are written in a single call. When
+	 * {@code out} is {@code null} messages are printed to {@code System.out}
+	 * as it is when the message is printed.
+	 */
+	public ArgParser(String progName, Class<?> entryPointClass, PrintStream out) throws InvalidDeclarationError {
+		long start = System.nanoTime();
+		this.progName = Objects.requireNonNull(progName);
+		this.mountsLoader = null;
+		this.out = out;
+		this.doc = entryPointClass.getAnnotation(ProcessDoc.class);
+		populateEntryPoints(entryPointClass, treeRoot, "");
+		if(treeRoot.subBranches.isEmpty() && treeRoot.entryPoint == null)
+			throw new InvalidDeclarationError("Class " + entryPointClass + " contains no entry points");
+		this.populateNanos = System.nanoTime() - start;
+	}
+	
+	public ArgParser(String progName, ClassLoader loader) throws InvalidDeclarationError {
+		this(progName, loader, null);
+	}
+	
+	/**
+	 * Creates a parser whose entry points are declared by the classes listed in
+	 * the index files of {@code progName}, see {@link EntryPointIndex}.
+	 * 
+	 * <p>
+	 * Mounted classes are only loaded, and their entry points and options
+	 * reflected, when a command goes through their branch. Completions and help
+	 * of the whole tree require loading every class. Options declared by a
+	 * mounted class that is not loaded yet are assumed not to take values when
+	 * they are given before the branch path, unless the word following them is
+	 * not a branch name.
+	 */
+	public ArgParser(String progName, ClassLoader loader, PrintStream out) throws InvalidDeclarationError {
+		long start = System.nanoTime();
 		this.progName = Objects.requireNonNull(progName);
-		this.entryPointClass = Objects.requireNonNull(entryPointClass);
-		populateEntryPoints();
+		this.mountsLoader = Objects.requireNonNull(loader);
+		this.out = out;
+		this.doc = null;
+		Map<String, String> mounts = EntryPointIndex.read(loader, progName);
+		if(mounts.isEmpty())
+			throw new InvalidDeclarationError("No entry point index found for " + progName);
+		for(Entry<String, String> mount : mounts.entrySet()) {
+			Branch branch = getEntrylessBranch(treeRoot, "", mount.getKey());
+			if(branch == treeRoot)
+				throw new InvalidDeclarationError("Class " + mount.getValue() + " cannot be mounted on the root branch");
+			branch.mountPath = mount.getKey();
+			branch.mountedClass = mount.getValue();
+		}
+		this.populateNanos = System.nanoTime() - start;
 	}
 
 	/**
@@ -144,8 +259,20 @@ public class ArgParser {
 	 * @see ArgParser
 	 */
 	public static void runHere(String[] args) {
+		runHere(CALLER_WALKER.getCallerClass(), args);
+	}
+	
+	/**
+	 * Finds an entry point method in {@code entryPointClass} and executes it.
+	 * <p>
+	 * Unlike {@link #runHere(String[])} this does not look up the calling class,
+	 * which is preferable for programs compiled ahead of time, see
+	 * {@link NativeImageConfig}.
+	 * @see ArgParser
+	 */
+	public static void runHere(Class<?> entryPointClass, String[] args) {
 		try {
-			new ArgParser(FilesUtils.getFileName(FilesUtils.getExecutionFile()), ReflectUtils.getCallerClass()).run(args);
+			new ArgParser(FilesUtils.getFileName(FilesUtils.getExecutionFile()), entryPointClass).run(args);
 		} catch (InvalidDeclarationError e) {
 			e.printStackTrace();
 		}
@@ -156,7 +283,10 @@ public class ArgParser {
 	 * @see StringUtils#splitWithQuotes(String, String)
 	 */
 	public void run(String args) {
-		run(StringUtils.splitWithQuotes(args, " "));
+		long start = System.nanoTime();
+		String[] argsArray = StringUtils.splitWithQuotes(args, " ");
+		recordTiming(Phase.TOKENIZE, start);
+		run(argsArray);
 	}
 	
 	/**
@@ -165,64 +295,501 @@ public class ArgParser {
 	 * @see ArgParser
 	 */
 	public void run(String[] args) {
+		run(args, null);
+	}
+	
+	/**
+	 * Starts recording the time spent in each phase of the commands run by this
+	 * parser in {@code timings}, or stops recording if {@code timings} is
+	 * {@code null}. The duration of the construction of this parser is recorded
+	 * immediately.
+	 */
+	public void setTimings(ArgParserTimings timings) {
+		this.timings = timings;
+		if(timings != null)
+			timings.record(progName, Phase.POPULATE, populateNanos);
+	}
+	
+	/**
+	 * Sets where the values of options missing from the command line are read,
+	 * by increasing precedence. For example
+	 * <blockquote><pre>
+	 * parser.setOptionSources(
+	 *     OptionSource.manifestFile(new File("mytool.conf")),
+	 *     OptionSource.environment("MYTOOL_"));
+	 * </pre></blockquote>
+	 * gives environment variables precedence over the configuration file, and
+	 * the command line precedence over both. Boolean options given on the
+	 * command line are set to the opposite of their declared default, whatever
+	 * the value read from the sources: with {@code MYTOOL_VERBOSE=true} in the
+	 * environment, {@code --verbose} keeps a field declared {@code false} on.
+	 * 
+	 * <p>
+	 * Values are read and converted once per option class, the first time a
+	 * command uses it, and reused by every later command until the sources are
+	 * replaced. A long-lived parser, such as the one of an
+	 * {@link ArgParserDaemon}, must be given new sources to see changes made to
+	 * its configuration file or environment.
+	 */
+	public void setOptionSources(OptionSource... sources) {
+		this.optionLayers = sources.length == 0 ? null : new LayeredOptions(sources);
+	}
+	
+	/**
+	 * Enables or disables the expansion of {@code @file} arguments, disabled by
+	 * default.
+	 * 
+	 * <p>
+	 * When enabled every argument starting with {@code @} names a file whose
+	 * content replaces it, relative to the working directory of the command. A
+	 * literal argument starting with {@code @}, such as {@code @user}, must
+	 * then be written {@code @@user}. Programs whose users pass such arguments
+	 * should only enable expansion with a new version of their command line.
+	 */
+	public void setArgumentFilesEnabled(boolean enabled) {
+		this.argumentFiles = enabled;
+	}
+	
+	private void recordTiming(Phase phase, long start) {
+		ArgParserTimings t = timings;
+		if(t != null)
+			t.record(progName, phase, System.nanoTime() - start);
+	}
+	
+	/**
+	 * Calls {@link #runAsync(String[], Executor)} with a shared executor running
+	 * each command on its own virtual thread. When virtual threads are not
+	 * available (before java 21) a cached pool of daemon threads is used instead.
+	 */
+	public CompletableFuture<Object> runAsync(String[] args) {
+		return runAsync(args, AsyncExecutor.INSTANCE);
+	}
+	
+	/**
+	 * Runs the command on {@code executor}.
+	 * 
+	 * <p>
+	 * The returned future completes with the value returned by the entry point
+	 * ({@code null} for void entry points and help prints), or exceptionally
+	 * with the exception thrown by the entry point or with a
+	 * {@link WrappedException} if the arguments are invalid. Errors are not
+	 * dumped.
+	 * 
+	 * <p>
+	 * Cancelling the future, or having it complete with a timeout using
+	 * {@link CompletableFuture#orTimeout(long, TimeUnit)},
+	 * interrupts the thread running the entry point if it is still running.
+	 * Entry points are responsible for reacting to interruptions.
+	 */
+	public CompletableFuture<Object> runAsync(String[] args, Executor executor) {
+		CompletableFuture<Object> result = new CompletableFuture<>();
+		FutureTask<Object> task = new FutureTask<>(() -> invoke(args, null)) {
+			@Override
+			protected void done() {
+				if(isCancelled())
+					return; // the result was completed before the command finished
+				try {
+					result.complete(get());
+				} catch (ExecutionException e) {
+					result.completeExceptionally(e.getCause());
+				} catch (InterruptedException e) {
+					result.completeExceptionally(e); // unreachable, the task is done
+				}
+			}
+		};
+		// no-op if the task is already done
+		result.whenComplete((value, error) -> task.cancel(true));
+		executor.execute(task);
+		return result;
+	}
+	
+	/**
+	 * Same as {@link #run(String[])} but resolves relative {@code File} arguments
+	 * and options against {@code workingDir} instead of the JVM current directory.
+	 */
+	Object run(String[] args, File workingDir) {
+		try {
+			return invoke(args, workingDir);
+		} catch (WrappedException e) {
+			e.errors.dump();
+			return null;
+		}
+	}
+	
+	/**
+	 * Finds the entry point to run and executes it, or prints help if it was asked
+	 * for.
+	 * 
+	 * @return the value returned by the entry point, {@code null} if it returns
+	 *         {@code void} or if help was printed
+	 * @throws WrappedException if the arguments or options are invalid
+	 */
+	Object invoke(String[] args, File workingDir) throws WrappedException {
+		return execute(parse(args, workingDir));
+	}
+	
+	/**
+	 * Finds the entry point matching the given arguments and converts them,
+	 * without running it. The returned command can be run any number of times
+	 * using {@link #execute(ParsedCommand)}.
+	 * 
+	 * <p>
+	 * If help is asked for the returned command prints it when executed.
+	 * Relative {@code File} arguments are resolved when parsing, against the
+	 * current directory.
+	 * 
+	 * @throws WrappedException if the arguments or options are invalid
+	 */
+	public ParsedCommand parse(String[] args) throws WrappedException {
+		return parse(args, null);
+	}
+	
+	/**
+	 * Checks many commands at once, in parallel, without running any of them.
+	 * Each command goes through {@link #parse(String[])}: its entry point is
+	 * resolved, its options must exist and its arguments must be in the right
+	 * number and be convertible to their types.
+	 * 
+	 * <p>
+	 * This is meant to check stored command lines against a new version of a
+	 * program, mounted classes used by the commands are loaded but no entry
+	 * point is invoked. Commands are expected to be run on another host: files
+	 * they name are not resolved and missing input files and {@code @argfile}s
+	 * are reported as non-fatal problems, see
+	 * {@link CommandDiagnostic.Problem#isFatal()}. A command whose
+	 * {@code @argfile} is missing cannot be checked any further, it is
+	 * reported as not {@link CommandDiagnostic#isChecked() checked} and is not
+	 * valid.
+	 * 
+	 * @return one diagnostic per command, in the same order as {@code commands}
+	 */
+	public List<CommandDiagnostic> validate(List<String[]> commands) {
+		CommandDiagnostic[] diagnostics = new CommandDiagnostic[commands.size()];
+		IntStream.range(0, diagnostics.length).parallel().forEach(i -> {
+			String[] command = commands.get(i);
+			ParseErrors errors = new ParseErrors(this, "Invalid arguments", false);
+			try {
+				ParsedCommand parsed = parse(command, null, errors);
+				String entryPath = parsed == null ? null : parsed.getEntryPath();
+				diagnostics[i] = new CommandDiagnostic(i, command, entryPath, null, errors.getProblems(), null, parsed != null);
+			} catch (WrappedException e) {
+				diagnostics[i] = new CommandDiagnostic(i, command, null, e.errors, errors.getProblems(), null, true);
+			} catch (RuntimeException | LinkageError e) {
+				diagnostics[i] = new CommandDiagnostic(i, command, null, null, errors.getProblems(), e, true);
+			}
+		});
+		return Arrays.asList(diagnostics);
+	}
+	
+	ParsedCommand parse(String[] args, File workingDir) throws WrappedException {
+		return parse(args, workingDir, new ParseErrors(this, "Invalid arguments"));
+	}
+	
+	/**
+	 * Parses a command, recording its errors in {@code errors}.
+	 * 
+	 * @return the command, {@code null} if {@code errors} does not
+	 *         {@link ParseErrors#checksFiles() check files} and the command
+	 *         cannot be read because an {@code @argfile} is missing
+	 */
+	private ParsedCommand parse(String[] args, File workingDir, ParseErrors errors) throws WrappedException {
 		if(treeRoot.subBranches.isEmpty() && treeRoot.entryPoint == null)
 			throw new IllegalStateException("No entry point registered");
 		
-		Map<String, String> options = new HashMap<>();
+		CommandOptions options = new CommandOptions();
+		List<String> path = new ArrayList<>();
 		List<String> entryArguments = new ArrayList<>();
 		Branch entryPointBranch;
 		
-		List<String> arguments = args == null ? Collections.emptyList() : new ArrayList<>(Arrays.asList(args));
+		List<String> arguments = expandArgumentFiles(args, workingDir, errors);
+		if(errors.hasUncheckedProblems())
+			return null;
 		boolean isHelpPrint = !arguments.isEmpty() && ArgParserHelper.isHelpPrint(arguments.get(0));
-		if(isHelpPrint) arguments.remove(0);
+		if(isHelpPrint)
+			arguments = arguments.subList(1, arguments.size());
+		
+		// read arguments, options and find the entry point
+		long start = System.nanoTime();
+		entryPointBranch = readArguments(errors, arguments, path, options, entryArguments);
+		recordTiming(Phase.READ_ARGUMENTS, start);
 		
+		if(entryPointBranch == treeRoot && (treeRoot.entryPoint == null || isHelpPrint))
+			return new ParsedCommand(getRootHelp());
+		
+		EntryPointFunction entry = entryPointBranch.entryPoint;
+		
+		if(isHelpPrint) {
+			if(entry == null)
+				return new ParsedCommand(getUnfinishedPathUsage(path, path.size(), entryPointBranch) + "\n");
+			else
+				return new ParsedCommand(getEntryPointHelp(entry));
+		}
+		
+		if(entry == null)
+			errors.addAndThrow(ParseErrorCode.UNFINISHED_PATH, ParseErrors.NO_INDEX, path, path.size(), entryPointBranch);
+		entry.checkOptionNames(options, workingDir, errors);
+		if(entryArguments.size() + entry.optionalParamCount() < entry.paramCount()) {
+			for(int i = entryArguments.size(); i < entry.paramCount() - entry.optionalParamCount(); i++)
+				errors.add(ParseErrorCode.MISSING_ARGUMENT, ParseErrors.NO_INDEX, entry, i);
+			errors.addAndThrow(ParseErrorCode.ENTRY_USAGE, ParseErrors.NO_INDEX, entry);
+		} else if(entryArguments.size() > entry.paramCount() && !entry.isFanOut()) {
+			errors.addAndThrow(ParseErrorCode.TOO_MANY_ARGUMENTS, ParseErrors.NO_INDEX, entry);
+		}
+		return convertCommand(errors, entry, options, entryArguments, workingDir);
+	}
+	
+	/**
+	 * Runs a command parsed by {@link #parse(String[])}, or prints help.
+	 * 
+	 * <p>
+	 * The time limit of the entry point, if it is {@link Limits limited}, is
+	 * applied, see {@link #execute(ParsedCommand, long, TimeUnit)}.
+	 * 
+	 * @return the value returned by the entry point, {@code null} if it returns
+	 *         {@code void} or if help was printed
+	 */
+	public Object execute(ParsedCommand command) {
+		return execute(command, null);
+	}
+	
+	/**
+	 * Same as {@link #execute(ParsedCommand)} but the inputs opened for the
+	 * entry point are added to {@code outResources} instead of being closed
+	 * when it returns, so that the stream it returned can still read them.
+	 * The caller closes them with {@link #closeAll(List)}.
+	 */
+	Object execute(ParsedCommand command, List<AutoCloseable> outResources) {
+		ExecutionLimits limits = command.isHelpPrint() ? null : command.getEntry().getLimits();
+		return execute(command, limits == null ? 0 : limits.getTimeoutMillis(), TimeUnit.MILLISECONDS, outResources);
+	}
+	
+	/**
+	 * Runs a command parsed by {@link #parse(String[])} on the current thread,
+	 * or prints help.
+	 * 
+	 * <p>
+	 * If the entry point still runs after {@code timeout} the thread is
+	 * interrupted and, once the entry point returned or threw, a
+	 * {@code CancellationException} is thrown. Entry points are responsible for
+	 * reacting to interruptions, an entry point that ignores them runs to its
+	 * end. The interrupt flag of the thread is left as it was before the call.
+	 * 
+	 * <p>
+	 * Entry points {@link Limits limiting} their concurrent executions first
+	 * wait for a slot, interrupting the thread while it waits cancels the
+	 * command.
+	 * 
+	 * @param timeout the time limit of the entry point, 0 for no limit,
+	 *                overrides the one of its {@link Limits} annotation
+	 * @return the value returned by the entry point, {@code null} if it returns
+	 *         {@code void} or if help was printed
+	 * @throws CancellationException      if the time limit was reached or if
+	 *                                    the thread was interrupted while
+	 *                                    waiting for a slot
+	 * @throws RejectedExecutionException if too many executions of the entry
+	 *                                    point are running
+	 */
+	public Object execute(ParsedCommand command, long timeout, TimeUnit unit) {
+		return execute(command, timeout, unit, null);
+	}
+	
+	private Object execute(ParsedCommand command, long timeout, TimeUnit unit, List<AutoCloseable> outResources) {
+		if(command.isHelpPrint()) {
+			print(command.getHelp());
+			return null;
+		}
+		ResultCache cache = command.getEntry().getResultCache();
+		if(cache != null) {
+			Object cached = cache.get(command.getCacheKey());
+			if(cached != ResultCache.MISS)
+				return cached;
+		}
+		ExecutionLimits limits = command.getEntry().getLimits();
+		if(limits != null)
+			limits.acquire(command);
+		CommandDeadline deadline = null;
+		Object result;
 		try {
-			ErrorWrapper errors = new ErrorWrapper("Invalid arguments", false);
-			
-			// read arguments, options and find the entry point
-			entryPointBranch = readArguments(errors, arguments, options, entryArguments);
-			
-			if(entryPointBranch == treeRoot && (treeRoot.entryPoint == null || isHelpPrint)) {
-				printRootHelp();
-				return;
-			}
-			
-			EntryPointFunction entry = entryPointBranch.entryPoint;
-			
-			if(isHelpPrint) {
-				if(entry == null)
-					System.out.println(getUnfinishedPathUsage(arguments, arguments.size(), entryPointBranch));
-				else
-					printEntryPointHelp(entry);
-				return;
+			if(timeout > 0)
+				deadline = CommandDeadline.start(timeout, unit);
+			result = executeEntry(command, outResources);
+		} catch (RuntimeException | Error e) {
+			if(deadline != null && deadline.finish())
+				throw deadline.timeoutException(command, e);
+			throw e;
+		} finally {
+			if(deadline != null)
+				deadline.finish();
+			if(limits != null)
+				limits.release();
+		}
+		if(deadline != null && deadline.finish())
+			throw deadline.timeoutException(command, null);
+		if(cache != null)
+			cache.put(command.getCacheKey(), result);
+		return result;
+	}
+	
+	private Object executeEntry(ParsedCommand command, List<AutoCloseable> outResources) {
+		if(command.getEntry().isFanOut())
+			return executeFanOut(command); // arguments are built for every element
+		long start = System.nanoTime();
+		List<AutoCloseable> resources = outResources == null ? new ArrayList<>(0) : outResources;
+		try {
+			Object[] arguments;
+			try {
+				arguments = command.getInvocationArguments(resources);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Cannot open the input of " + command, e);
 			}
-			
-			if(entry == null) {
-				errors.addAndThrow(getUnfinishedPathUsage(arguments, arguments.size(), entryPointBranch));
-			} else if(entryArguments.size() + entry.optionalParamCount() < entry.paramCount()) {
-				for(int i = entryArguments.size(); i < entry.paramCount() - entry.optionalParamCount(); i++)
-					errors.add("Missing argument for <" + entry.getParamName(i) + ">");
-				errors.addAndThrow(getEntryUsage(entry));
-			} else if(entryArguments.size() > entry.paramCount()) {
-				errors.addAndThrow("Too many arguments given\n" + getEntryUsage(entry));
+			recordTiming(Phase.CREATE_OPTIONS, start);
+			return invokeEntryPoint(command.getEntry(), arguments);
+		} finally {
+			if(outResources == null)
+				closeAll(resources);
+		}
+	}
+	
+	private FanOutResult executeFanOut(ParsedCommand command) {
+		EntryPointFunction entry = command.getEntry();
+		return entry.getFanOutRunner().run(command.getFanOutElements(),
+				i -> invokeEntryPoint(entry, command.getFanOutInvocationArguments(i)));
+	}
+	
+	/**
+	 * Splits {@code line} on {@code |} words and runs its commands as a pipeline,
+	 * see {@link #runPipeline(List)}.
+	 * 
+	 * @throws WrappedException if the arguments of any command are invalid
+	 */
+	public Object runPipeline(String line) throws WrappedException {
+		List<String[]> commands = new ArrayList<>();
+		List<String> current = new ArrayList<>();
+		for(String word : StringUtils.splitWithQuotes(line, " ")) {
+			if(word.equals("|")) {
+				commands.add(current.toArray(String[]::new));
+				current.clear();
 			} else {
-				runCommand(errors, entry, options, entryArguments);
+				current.add(word);
+			}
+		}
+		commands.add(current.toArray(String[]::new));
+		return runPipeline(commands);
+	}
+	
+	/**
+	 * Runs commands as a pipeline, each on its own thread (a virtual thread when
+	 * available), the objects produced by a command being streamed to the next
+	 * one without being converted to text.
+	 * 
+	 * <p>
+	 * Every command but the first must declare a {@code Stream} or
+	 * {@code Iterator} input as last parameter, and leave its argument out.
+	 * That input receives the elements of the {@code Stream}, {@code Iterator}
+	 * or {@code Iterable} returned by the previous command, or its single
+	 * return value. At most {@value CommandPipeline#PIPE_CAPACITY} elements wait
+	 * between two commands, so that a fast producer cannot run ahead of its
+	 * consumer.
+	 * 
+	 * <p>
+	 * Commands are all parsed before any is run, the errors of the first invalid
+	 * command are thrown. If a command fails the other ones are interrupted and
+	 * its exception is rethrown.
+	 * 
+	 * <p>
+	 * When the last command returns a {@code Stream} or an {@code Iterator} the
+	 * commands before it keep running while it is read. It must be consumed to
+	 * its end or closed, the returned iterator is {@code AutoCloseable}.
+	 * 
+	 * @return the value returned by the last command
+	 * @throws WrappedException if the arguments of any command are invalid
+	 */
+	public Object runPipeline(List<String[]> commands) throws WrappedException {
+		if(commands.isEmpty())
+			throw new IllegalArgumentException("Empty pipeline");
+		ParseErrors errors = new ParseErrors(this, "Invalid pipeline");
+		List<ParsedCommand> parsed = new ArrayList<>(commands.size());
+		for(int i = 0; i < commands.size(); i++) {
+			ParsedCommand command = parse(commands.get(i), null);
+			if(command.isHelpPrint())
+				errors.add(ParseErrorCode.HELP_IN_PIPELINE, i);
+			else if(i != 0 && (!command.getEntry().isPipeable() || command.getInput() != InputArgument.STDIN))
+				errors.add(ParseErrorCode.NOT_PIPEABLE, i, command.getEntryPath());
+			parsed.add(command);
+		}
+		errors.assertNoErrors();
+		if(parsed.size() == 1)
+			return execute(parsed.get(0));
+		return new CommandPipeline(this, parsed, AsyncExecutor.INSTANCE).run();
+	}
+	
+	/**
+	 * Discards the cached results of every {@link Cacheable} entry point, to be
+	 * used when the data they query changed.
+	 */
+	public void clearResultCaches() {
+		clearResultCaches(treeRoot);
+	}
+	
+	private static void clearResultCaches(Branch branch) {
+		if(branch.entryPoint != null && branch.entryPoint.getResultCache() != null)
+			branch.entryPoint.getResultCache().clear();
+		for(Branch sub : branch.subBranches.values())
+			clearResultCaches(sub);
+	}
+	
+	static void closeAll(List<AutoCloseable> resources) {
+		for(AutoCloseable resource : resources) {
+			try {
+				resource.close();
+			} catch (Exception e) {
+				// the entry point already returned, failing to close its input does not matter
 			}
-		} catch (WrappedException e) {
-			e.errors.dump();
 		}
 	}
 	
-	private void populateEntryPoints() throws InvalidDeclarationError {
-		for(Method m : entryPointClass.getDeclaredMethods()) {
+	String getProgName() {
+		return progName;
+	}
+	
+	Branch getTreeRoot() {
+		return treeRoot;
+	}
+	
+	/** Returns the names and shorthands of all options declared by entry points */
+	Collection<String> getAllOptionNames() {
+		return getOptionTable(treeRoot).getNames();
+	}
+	
+	boolean doesOptionTakeArgument(String option) {
+		OptionTable table = getOptionTable(treeRoot);
+		int slot = table.indexOf(option);
+		return slot != -1 && table.takesArgument(slot);
+	}
+	
+	/**
+	 * Registers the entry points of {@code clazz}, which must all be on
+	 * {@code basePath}, in the tree starting at {@code base}.
+	 */
+	private void populateEntryPoints(Class<?> clazz, Branch base, String basePath) throws InvalidDeclarationError {
+		for(Method m : clazz.getDeclaredMethods()) {
 			EntryPoint annotation = m.getAnnotation(EntryPoint.class);
 			if(annotation == null)
 				continue;
 			
 			String path = annotation.path();
+			String relativePath;
+			if(basePath.isEmpty())
+				relativePath = path;
+			else if(path.equals(basePath))
+				relativePath = EntryPoint.ROOT_ENTRY_POINT;
+			else if(path.startsWith(basePath + " "))
+				relativePath = path.substring(basePath.length()+1);
+			else
+				throw new InvalidDeclarationError("Entry point '" + path + "' of " + m + " is not on its mounted branch '" + basePath + "'");
 			
 			try {
-				Branch branch = getEntrylessBranch(path);
+				Branch branch = getEntrylessBranch(base, basePath, relativePath);
 				ArgParserHelper.validateEntryMethodParameters(m);
 				ProcessOptions opt = getOrCreateOptionClass(m);
 				branch.entryPoint = EntryPointFunction.createEntryPointFunction(m, opt);
@@ -230,27 +797,107 @@ public class ArgParser {
 				throw new InvalidDeclarationError("Cannot register branch '" + path + "' for method " + m, e);
 			}
 		}
-		if(treeRoot.subBranches.isEmpty() && treeRoot.entryPoint == null)
-			throw new InvalidDeclarationError("Class " + entryPointClass + " contains no entry points");
 	}
 	
-	private Branch getEntrylessBranch(String path) throws InvalidDeclarationError {
-		String[] parts = path.split(" ");
-		Branch current = treeRoot;
-		int pl = 0;
+	/**
+	 * Loads the class mounted on {@code branch} if it was not loaded yet.
+	 * 
+	 * @throws IllegalStateException if the mounted class is missing or invalid
+	 */
+	private void ensureLoaded(Branch branch) {
+		if(branch.mountedClass != null)
+			loadMountedClass(branch);
+	}
+	
+	private synchronized void loadMountedClass(Branch branch) {
+		String className = branch.mountedClass;
+		if(className == null)
+			return; // loaded concurrently
+		long start = System.nanoTime();
+		try {
+			Class<?> clazz = Class.forName(className, true, mountsLoader);
+			populateEntryPoints(clazz, branch, branch.mountPath);
+			if(branch.subBranches.isEmpty() && branch.entryPoint == null)
+				throw new InvalidDeclarationError("Class " + clazz + " contains no entry points");
+			// the options of the class are now given to the branches above it
+			Branch pathBranch = treeRoot;
+			pathBranch.optionTable = null;
+			for(String word : branch.mountPath.split(" ")) {
+				pathBranch = pathBranch.subBranches.get(word);
+				pathBranch.optionTable = null;
+			}
+		} catch (ClassNotFoundException | InvalidDeclarationError e) {
+			throw new IllegalStateException("Cannot load the entry points of branch '" + branch.mountPath + "'", e);
+		}
+		branch.mountedClass = null;
+		recordTiming(Phase.LOAD_MOUNT, start);
+	}
+	
+	/**
+	 * Loads every mounted class, used where the whole entry point tree is needed.
+	 */
+	void loadAllBranches() {
+		loadAllBranches(treeRoot);
+	}
+	
+	private void loadAllBranches(Branch branch) {
+		ensureLoaded(branch);
+		for(Branch sub : branch.subBranches.values())
+			loadAllBranches(sub);
+	}
+	
+	/**
+	 * Loads the mounted classes on the path of a command before it is read, so
+	 * that the options they declare are known. Options are read with the table
+	 * of the branch they are given to, unknown options are assumed to be flags,
+	 * unless the next word is not a branch name in which case it is taken as
+	 * their value.
+	 */
+	private void loadCommandPath(List<String> args) {
+		Branch branch = treeRoot;
+		boolean afterUnknownOption = false;
+		for(int i = 0; i < args.size() && branch.entryPoint == null; i++) {
+			String arg = args.get(i);
+			if(arg.startsWith("-")) {
+				OptionTable table = getOptionTable(branch);
+				int slot = table.indexOf(arg);
+				if(slot != -1 && table.takesArgument(slot))
+					i++;
+				afterUnknownOption = slot == -1;
+				continue;
+			}
+			Branch next = branch.subBranches.get(arg);
+			if(next == null && !afterUnknownOption)
+				return;
+			afterUnknownOption = false;
+			if(next != null) {
+				ensureLoaded(next);
+				branch = next;
+			}
+		}
+	}
+	
+	private Branch getEntrylessBranch(Branch base, String basePath, String relativePath) throws InvalidDeclarationError {
+		String[] parts = relativePath.split(" ");
+		Branch current = base;
+		String path = basePath;
 		
-		if(!ArgParserHelper.isRootBranch(path)) {
+		if(!ArgParserHelper.isRootBranch(relativePath)) {
 			for(String p : parts) {
 				if(!ArgParserHelper.canBeBranchName(p))
 					throw new InvalidDeclarationError("Name '" + p + "' cannot be used as a branch path");
 				
 				if(current.entryPoint != null)
-					throw new InvalidDeclarationError("Branch '" + path.substring(0, pl) + "' has a declared entry point, it cannot have sub-paths");
+					throw new InvalidDeclarationError("Branch '" + path + "' has a declared entry point, it cannot have sub-paths");
 				current = current.subBranches.computeIfAbsent(p, _p -> new Branch());
-				pl += p.length()+1;
+				path = path.isEmpty() ? p : path + " " + p;
+				if(current.mountedClass != null)
+					throw new InvalidDeclarationError("Branch '" + path + "' is mounted by " + current.mountedClass + ", it cannot be declared again");
 			}
 		}
 		
+		if(path.isEmpty())
+			path = relativePath;
 		if(current.entryPoint != null)
 			throw new InvalidDeclarationError("Branch '" + path + "' already has an entry point");
 		if(!current.subBranches.isEmpty())
@@ -265,21 +912,29 @@ public class ArgParser {
 		ProcessOptions optionsClass = optionClasses.get(optionsType);
 		if(optionsClass == null)
 			optionsClass = ProcessOptions.createOptionsClass(optionsType);
-		for(Entry<String, Field> option : optionsClass.getOptionFields().entrySet()) {
+		// options are read with branch tables before the entry point is known, where their arity must be unambiguous
+		for(Entry<String, OptionField> option : optionsClass.getOptionFields().entrySet()) {
 			String optName = option.getKey();
-			Boolean alreadyDefinedTakesArg = optionsTakingArguments.get(optName);
 			boolean takesArg = OptionsHelper.doesOptionTakeArgument(option.getValue().getType());
-			if(alreadyDefinedTakesArg != null && takesArg != alreadyDefinedTakesArg)
-				throw new InvalidDeclarationError("Option '" + optName + "' was defined in two option classes,"
-						+ " only one taking an argument: second occurence" + option.getValue());
-			optionsTakingArguments.put(optName, takesArg);
+			for(ProcessOptions other : optionClasses.values()) {
+				OptionTable table = other.getOptionTable();
+				int slot = table.indexOf(optName);
+				if(other != optionsClass && slot != -1 && table.takesArgument(slot) != takesArg)
+					throw new InvalidDeclarationError("Option '" + optName + "' was defined in two option classes,"
+							+ " only one taking an argument: second occurence" + option.getValue());
+			}
 		}
 		optionClasses.put(optionsType, optionsClass);
 		return optionsClass;
 	}
 	
-	private void printEntryPointHelp(EntryPointFunction entryPoint) {
-		System.out.println(getEntryUsage(entryPoint));
+	private String getEntryPointHelp(EntryPointFunction entryPoint) {
+		return helpCache.computeIfAbsent(entryPoint, this::renderEntryPointHelp);
+	}
+	
+	private String renderEntryPointHelp(EntryPointFunction entryPoint) {
+		StringBuilder help = new StringBuilder();
+		help.append(getEntryUsage(entryPoint)).append('\n');
 		
 		int maxParamNameLength = 0;
 		List<String> parameterNames = new ArrayList<>();
@@ -299,24 +954,18 @@ public class ArgParser {
 		if(maxParamNameLength > 35)
 			maxParamNameLength = 35;
 		
-		for(int i = 0; i < entryPoint.paramCount(); i++) {
-			String argName = parameterNames.get(i);
-			String argDesc = entryPoint.getParamDesc(i);
-			int padding = Math.max(0, maxParamNameLength - argName.length());
-			if(!argDesc.isBlank())
-				argDesc = " - " + argDesc.replaceAll("\n", "\n"+" ".repeat(maxParamNameLength+2));
-			System.out.println(argName + " ".repeat(padding) + argDesc);
-		}
+		for(int i = 0; i < entryPoint.paramCount(); i++)
+			appendHelpLine(help, parameterNames.get(i), entryPoint.getParamDesc(i), maxParamNameLength);
 		
 		if(!entryPoint.usesOptions())
-			return;
+			return help.toString();
 		
 		maxParamNameLength = 0;
 		parameterNames.clear();
 		
-		Set<Field> optionFields = new HashSet<>(entryPoint.getOptions().getOptionFields().values());
-		for(Field optionField : optionFields) {
-			Option opt = optionField.getAnnotation(Option.class);
+		Set<OptionField> optionFields = new LinkedHashSet<>(entryPoint.getOptions().getOptionFields().values());
+		for(OptionField optionField : optionFields) {
+			Option opt = optionField.getOption();
 			String fullName = "  " + opt.name();
 			if(!opt.shorthand().isBlank())
 				fullName += " (" + opt.shorthand() + ")";
@@ -330,51 +979,165 @@ public class ArgParser {
 		if(maxParamNameLength > 35)
 			maxParamNameLength = 35;
 		
-		for(Field optionField : optionFields) {
-			Option opt = optionField.getAnnotation(Option.class);
-			String optDesc = opt.desc();
-			String optName = parameterNames.remove(0);
-			if(!optDesc.isBlank())
-				optDesc = " - " + optDesc.replaceAll("\n", "\n"+" ".repeat(maxParamNameLength+2));
-			int padding = Math.max(0, maxParamNameLength - optName.length());
-			System.out.println(optName + " ".repeat(padding) + optDesc);
+		int i = 0;
+		for(OptionField optionField : optionFields)
+			appendHelpLine(help, parameterNames.get(i++), optionField.getOption().desc(), maxParamNameLength);
+		
+		return help.toString();
+	}
+	
+	private static void appendHelpLine(StringBuilder help, String name, String desc, int descColumn) {
+		help.append(name);
+		for(int p = name.length(); p < descColumn; p++)
+			help.append(' ');
+		if(!desc.isBlank()) {
+			help.append(" - ");
+			for(int c = 0; c < desc.length(); c++) {
+				char ch = desc.charAt(c);
+				help.append(ch);
+				if(ch == '\n') {
+					for(int p = 0; p < descColumn+2; p++)
+						help.append(' ');
+				}
+			}
 		}
+		help.append('\n');
 	}
 	
-	private void printRootHelp() {
-		ProcessDoc doc = entryPointClass.getAnnotation(ProcessDoc.class);
-		if(doc != null)
-			System.out.println(doc.doc());
+	private String getRootHelp() {
+		if(rootHelp == null)
+			rootHelp = renderRootHelp();
+		return rootHelp;
+	}
+	
+	private String renderRootHelp() {
+		String help = doc == null ? "" : doc.doc() + "\n";
 		EntryPointFunction entry = treeRoot.entryPoint;
-		if(entry == null) {
-			System.out.println(getUnfinishedPathUsage(Collections.emptyList(), 0, treeRoot));
-		} else {
-			printEntryPointHelp(entry);
+		if(entry == null)
+			return help + getUnfinishedPathUsage(Collections.emptyList(), 0, treeRoot) + "\n";
+		else
+			return help + renderEntryPointHelp(entry);
+	}
+	
+	/**
+	 * Writes {@code text} to the output stream of this parser at once, the stream
+	 * is flushed afterwards.
+	 */
+	private void print(String text) {
+		PrintStream output = getOutput();
+		output.print(text);
+		output.flush();
+	}
+	
+	private PrintStream getOutput() {
+		return out == null ? System.out : out;
+	}
+	
+	/** Lazily created default executor of {@link ArgParser#runAsync(String[])} */
+	private static class AsyncExecutor {
+		
+		static final Executor INSTANCE = createExecutor();
+		
+		private static Executor createExecutor() {
+			try {
+				// java 21+, looked up reflectively to keep compiling with older jdks
+				return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+				return Executors.newCachedThreadPool(r -> {
+					Thread t = new Thread(r, "ArgParser async command");
+					t.setDaemon(true);
+					return t;
+				});
+			}
 		}
+		
 	}
 	
-	private static void runCommand(ErrorWrapper errors, EntryPointFunction entry,
-			Map<String, String> options, List<String> argumentsStrings) throws WrappedException {
+	private ParsedCommand convertCommand(ParseErrors errors, EntryPointFunction entry,
+			CommandOptions options, List<String> argumentsStrings, File workingDir) throws WrappedException {
 		
-		Object[] arguments = new Object[entry.paramCount()];
+		long start = System.nanoTime();
+		Object[] arguments = new Object[Math.max(entry.paramCount(), argumentsStrings.size())];
+		int fileCount = 0;
 		
 		for(int i = 0; i < argumentsStrings.size(); i++) {
+			if(entry.getArgumentType(i) == File.class) {
+				fileCount++;
+				continue; // resolved together below
+			}
+			if(InputArgument.isInputType(entry.getArgumentType(i))) {
+				arguments[i] = getInputArgument(argumentsStrings.get(i), workingDir, errors, errors.getArgumentWord(i));
+				continue;
+			}
 			try {
 				arguments[i] = OptionsHelper.parseOptionValue(
 						argumentsStrings.get(i),
-						entry.getParamType(i),
-						entry.getParamName(i));
+						entry.getArgumentType(i),
+						entry.getArgumentName(i),
+						workingDir);
 			} catch (ArgumentError e) {
-				errors.add(e.getMessage());
+				errors.add(ParseErrorCode.INVALID_VALUE, errors.getArgumentWord(i), e);
 			}
 		}
 		
-		arguments = entry.finishArgsArray(arguments, options, errors);
+		// File arguments are not resolved when validating for another host
+		if(fileCount != 0 && errors.checksFiles())
+			resolveFileArguments(entry, argumentsStrings, fileCount, workingDir, arguments, errors);
+		
+		recordTiming(Phase.CONVERT_ARGUMENTS, start);
+		
+		start = System.nanoTime();
+		OptionsTemplate optionsTemplate = entry.finishArguments(arguments, options, optionLayers, workingDir, errors);
+		recordTiming(Phase.CREATE_OPTIONS, start);
 		
 		errors.assertNoErrors();
 		
+		return new ParsedCommand(entry, arguments, optionsTemplate);
+	}
+	
+	private static InputArgument getInputArgument(String path, File workingDir, ParseErrors errors, int word) {
+		if(path.equals("-"))
+			return InputArgument.STDIN;
+		File file = new File(path);
+		if(workingDir != null && !file.isAbsolute())
+			file = new File(workingDir, path);
+		if(!file.isFile()) {
+			if(errors.checksFiles())
+				errors.add(ParseErrorCode.INPUT_FILE_MISSING, word, path);
+			else
+				errors.addUnchecked(ParseErrorCode.INPUT_FILE_MISSING, word, path);
+		}
+		return new InputArgument(file);
+	}
+	
+	/**
+	 * Canonicalizes the {@code File} arguments of a command at once, sharing the
+	 * resolution of their parent directories.
+	 */
+	private static void resolveFileArguments(EntryPointFunction entry, List<String> argumentsStrings, int fileCount,
+			File workingDir, Object[] outArguments, ParseErrors errors) {
+		int[] indices = new int[fileCount];
+		String[] paths = new String[fileCount];
+		for(int i = 0, f = 0; i < argumentsStrings.size(); i++) {
+			if(entry.getArgumentType(i) == File.class) {
+				indices[f] = i;
+				paths[f++] = argumentsStrings.get(i);
+			}
+		}
+		Exception[] failures = new Exception[fileCount];
+		File[] files = new FileResolver(workingDir).resolveAll(paths, failures);
+		for(int f = 0; f < fileCount; f++) {
+			if(failures[f] == null)
+				outArguments[indices[f]] = files[f];
+			else
+				errors.add(ParseErrorCode.UNRESOLVABLE_PATH, errors.getArgumentWord(indices[f]), paths[f], failures[f]);
+		}
+	}
+	
+	private Object invokeEntryPoint(EntryPointFunction entry, Object[] arguments) {
+		long start = System.nanoTime();
 		try {
-			entry.getMethod().invoke(null, arguments);
+			return entry.getMethod().invoke(null, arguments);
 		} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
 			if(e.getCause() instanceof Error) {
 				cleanStackTrace(e.getCause());
@@ -385,6 +1148,8 @@ public class ArgParser {
 				throw (RuntimeException) e.getCause();
 			}
 			throw new IllegalStateException("Unable to invoke method " + entry.getMethod(), e);
+		} finally {
+			recordTiming(Phase.INVOKE, start);
 		}
 	}
 	
@@ -416,33 +1181,85 @@ public class ArgParser {
 		t.setStackTrace(ArrayOperator.filter(trace, el -> !classNames.contains(el.getClassName())));
 	}
 	
-	private Branch readArguments(ErrorWrapper errors, List<String> args,
-			Map<String, String> outOptions, List<String> outArguments) throws WrappedException {
+	/**
+	 * Expands {@code @file} arguments into the arguments listed in the file, see
+	 * {@link ArgumentFile}, if {@link #setArgumentFilesEnabled(boolean) enabled}.
+	 * An argument starting with {@code @@} is passed as is, without its first
+	 * {@code @}.
+	 */
+	private List<String> expandArgumentFiles(String[] args, File workingDir, ParseErrors errors) throws WrappedException {
+		if(args == null)
+			return Collections.emptyList();
+		if(!argumentFiles)
+			return Arrays.asList(args);
+		long start = System.nanoTime();
+		List<String> arguments = new ArrayList<>(args.length);
+		for(int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if(arg.startsWith("@@")) {
+				arguments.add(arg.substring(1));
+			} else if(arg.startsWith("@") && arg.length() > 1) {
+				File file = new File(arg.substring(1));
+				if(workingDir != null && !file.isAbsolute())
+					file = new File(workingDir, file.getPath());
+				try {
+					ArgumentFile.readArguments(file.toPath(), arguments);
+				} catch (NoSuchFileException e) {
+					if(errors.checksFiles())
+						errors.add(ParseErrorCode.ARGUMENT_FILE_MISSING, i, file);
+					else
+						errors.addUnchecked(ParseErrorCode.ARGUMENT_FILE_MISSING, i, file);
+				} catch (IOException e) {
+					if(errors.checksFiles())
+						errors.add(ParseErrorCode.ARGUMENT_FILE_UNREADABLE, i, file, e);
+					else
+						errors.addUnchecked(ParseErrorCode.ARGUMENT_FILE_UNREADABLE, i, file, e);
+				}
+			} else {
+				arguments.add(arg);
+			}
+		}
+		recordTiming(Phase.EXPAND_ARGUMENT_FILES, start);
+		errors.assertNoErrors();
+		return arguments;
+	}
+	
+	/**
+	 * Separates the words of the entry point path, options and arguments.
+	 * {@code args} is not modified.
+	 */
+	private Branch readArguments(ParseErrors errors, List<String> args, List<String> outPath,
+			CommandOptions outOptions, List<String> outArguments) throws WrappedException {
 		
 		Branch currentBranch = treeRoot;
 		
+		if(mountsLoader != null)
+			loadCommandPath(args);
+		
 		boolean loggedPathError = false;
 		
 		for(int i = 0; i < args.size(); i++) {
 			String arg = args.get(i);
 			
-			if(arg.startsWith("-")) {
-				// read an option (with or without value)
-				readOptionArg(i--, args, outOptions, errors);
+			if(arg.startsWith("-") && !arg.equals("-")) {
+				// read an option (with or without value), a lone dash is an argument
+				i = readOptionArg(i, args, currentBranch, outOptions, errors);
 				
 			} else if(currentBranch.entryPoint == null) {
 				// search for the entry point
 				if(currentBranch.subBranches.containsKey(arg)) {
 					currentBranch = currentBranch.subBranches.get(arg);
+					ensureLoaded(currentBranch);
+					outPath.add(arg);
 				} else if(!loggedPathError) {
-					errors.add("Unknown usage - " + arg + "\n" + getUnfinishedPathUsage(args, i, currentBranch));
+					errors.add(ParseErrorCode.UNKNOWN_PATH_WORD, i, arg, currentBranch, outPath, outPath.size());
 					loggedPathError = true;
 				}
 				
 			} else {
 				// read an argument
 				outArguments.add(arg);
-				args.remove(i--);
+				errors.recordArgumentWord(i);
 			}
 		}
 		
@@ -450,38 +1267,65 @@ public class ArgParser {
 		return currentBranch;
 	}
 	
-	private void readOptionArg(int position, List<String> args, Map<String, String> outOptions, ErrorWrapper errors) {
-		String option = args.remove(position);
+	/**
+	 * Reads the option at {@code position} and its value if it takes one.
+	 * 
+	 * @return the position of the last word read
+	 */
+	private int readOptionArg(int position, List<String> args, Branch branch, CommandOptions outOptions, ParseErrors errors) {
+		String option = args.get(position);
+		OptionTable table = getOptionTable(branch);
+		// entry point tables resolve options, branch tables only give their arity
+		OptionTable entryTable = branch.entryPoint == null ? null : table;
 		
 		// read combined notation -abc
 		if(!option.startsWith("--")) {
-			char[] chars = option.toCharArray();
-			for(int i = 1; i < chars.length-1; i++) {
-				String copt = "-" + chars[i];
-				Boolean takesArgument = optionsTakingArguments.get(option);
-				if(takesArgument != null && takesArgument) {
-					errors.add("Option " + copt + " requires a value");
+			for(int i = 1; i < option.length()-1; i++) {
+				String copt = "-" + option.charAt(i);
+				int slot = table.indexOf(copt);
+				if(slot != -1 && table.takesArgument(slot)) {
+					errors.add(ParseErrorCode.OPTION_REQUIRES_VALUE, position, copt);
 				} else {
-					outOptions.put(copt, null);
+					outOptions.add(copt, null, entryTable, position);
 				}
 			}
-			option = "-" + chars[chars.length-1];
+			option = "-" + option.charAt(option.length()-1);
 		}
 		
-		Boolean takesArgument = optionsTakingArguments.get(option);
-		if(takesArgument != null && takesArgument) {
-			if(position == args.size()) {
-				errors.add("Option " + option + " requires a value");
+		int slot = table.indexOf(option);
+		if(slot != -1 && table.takesArgument(slot)) {
+			if(position+1 == args.size()) {
+				errors.add(ParseErrorCode.OPTION_REQUIRES_VALUE, position, option);
 			} else {
-				String nextArg = args.remove(position);
-				outOptions.put(option, nextArg);
+				outOptions.add(option, args.get(position+1), entryTable, position);
+				position++;
 			}
 		} else {
-			outOptions.put(option, null);
+			outOptions.add(option, null, entryTable, position);
 		}
+		return position;
 	}
 	
-	private String getUnfinishedPathUsage(List<String> args, int readCount, Branch currentBranch) {
+	/**
+	 * Returns the table of the options that can be given to {@code branch}, see
+	 * {@link OptionTable}.
+	 */
+	private OptionTable getOptionTable(Branch branch) {
+		EntryPointFunction entry = branch.entryPoint;
+		if(entry != null)
+			return entry.usesOptions() ? entry.getOptions().getOptionTable() : OptionTable.EMPTY;
+		OptionTable table = branch.optionTable;
+		return table != null ? table : buildOptionTable(branch);
+	}
+	
+	/** Synchronized with {@link #loadMountedClass(Branch)}, which resets the tables it makes stale */
+	private synchronized OptionTable buildOptionTable(Branch branch) {
+		if(branch.optionTable == null)
+			branch.optionTable = OptionTable.forBranch(branch);
+		return branch.optionTable;
+	}
+	
+	String getUnfinishedPathUsage(List<String> args, int readCount, Branch currentBranch) {
 		return "Usage: " + getCurrentPathString(args, readCount) + " "
 				+ StringUtils.join("|", currentBranch.subBranches.keySet())
 				+ " ...\nUse '" + progName + " --help <cmd>' for help";
@@ -494,8 +1338,11 @@ public class ArgParser {
 		return s;
 	}
 	
-	private String getEntryUsage(EntryPointFunction entry) {
-		Method entryMethod = entry.getMethod();
+	String getEntryUsage(EntryPointFunction entry) {
+		return usageCache.computeIfAbsent(entry, this::renderEntryUsage);
+	}
+	
+	private String renderEntryUsage(EntryPointFunction entry) {
 		String usage = "Usage: " + progName;
 		if(entry.usesOptions()) {
 			Collection<String> availableOptions = entry.getOptions().getAvailableOptionNames();
@@ -506,7 +1353,7 @@ public class ArgParser {
 					usage += " (" + opt + ")";
 			}
 		}
-		EntryPoint annotation = entryMethod.getAnnotation(EntryPoint.class);
+		EntryPoint annotation = entry.getAnnotation();
 		String entryPath = annotation.path();
 		if(!ArgParserHelper.isRootBranch(entryPath))
 			usage += " " + entryPath;
@@ -515,16 +1362,11 @@ public class ArgParser {
 			usage += " <" + entry.getParamName(i) + ">";
 		for( ; i < entry.paramCount(); i++)
 			usage += " [" + entry.getParamName(i) + "]";
+		if(entry.isFanOut())
+			usage += "...";
 		if(!annotation.help().isBlank())
 			usage += "\n" + annotation.help();
 		return usage;
 	}
 	
 }
-
-class Branch {
-	
-	final Map<String, Branch> subBranches = new HashMap<>(0);
-	EntryPointFunction entryPoint = null;
-	
-}
\ No newline at end of file
@@ -0,0 +1,250 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import fr.wonder.commons.exceptions.ErrorWrapper;
+import fr.wonder.commons.exceptions.ErrorWrapper.WrappedException;
+import fr.wonder.commons.utils.StringUtils;
+
+/**
+ * Runs scripts of commands with a single {@link ArgParser}.
+ *
+ * <p>
+ * Scripts contain one command per line, as it would be given to
+ * {@link ArgParser#run(String)}. Blank lines and lines starting with a
+ * {@code #} are ignored.
+ *
+ * <p>
+ * With a parallelism greater than 1 commands are run concurrently on a fixed
+ * pool of threads, they must therefore be independent from one another and
+ * entry points must be thread safe. Results are always reported in the order
+ * of the script.
+ */
+public class ArgParserBatch {
+
+	private final ArgParser parser;
+	private final int parallelism;
+
+	/**
+	 * Creates a batch runner executing commands serially.
+	 */
+	public ArgParserBatch(ArgParser parser) {
+		this(parser, 1);
+	}
+
+	/**
+	 * Creates a batch runner executing at most {@code parallelism} commands at
+	 * the same time.
+	 */
+	public ArgParserBatch(ArgParser parser, int parallelism) {
+		if(parallelism < 1)
+			throw new IllegalArgumentException("Invalid parallelism " + parallelism);
+		this.parser = Objects.requireNonNull(parser);
+		this.parallelism = parallelism;
+	}
+
+	public Report run(Path script) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(script)) {
+			return run(reader);
+		}
+	}
+
+	public Report run(Reader script) throws IOException {
+		BufferedReader reader = script instanceof BufferedReader ? (BufferedReader) script : new BufferedReader(script);
+		List<String> lines = new ArrayList<>();
+		for(String line = reader.readLine(); line != null; line = reader.readLine())
+			lines.add(line);
+		return run(lines);
+	}
+
+	/**
+	 * Runs every command of the given script, see {@link ArgParserBatch}.
+	 */
+	public Report run(List<String> script) {
+		List<Integer> lineNumbers = new ArrayList<>();
+		List<String> commands = new ArrayList<>();
+		for(int i = 0; i < script.size(); i++) {
+			String line = script.get(i).strip();
+			if(line.isEmpty() || line.startsWith("#"))
+				continue;
+			lineNumbers.add(i+1);
+			commands.add(line);
+		}
+
+		CommandResult[] results = new CommandResult[commands.size()];
+		long start = System.nanoTime();
+
+		if(parallelism == 1) {
+			for(int i = 0; i < results.length; i++)
+				results[i] = runCommand(lineNumbers.get(i), commands.get(i));
+		} else {
+			ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, results.length)));
+			try {
+				List<Future<CommandResult>> futures = new ArrayList<>(results.length);
+				for(int i = 0; i < results.length; i++) {
+					int line = lineNumbers.get(i);
+					String command = commands.get(i);
+					futures.add(executor.submit(() -> runCommand(line, command)));
+				}
+				for(int i = 0; i < results.length; i++)
+					results[i] = futures.get(i).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while running a batch", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Unexpected batch failure", e.getCause());
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+
+		return new Report(Arrays.asList(results), System.nanoTime() - start);
+	}
+
+	private CommandResult runCommand(int line, String command) {
+		long start = System.nanoTime();
+		Object value = null;
+		ErrorWrapper errors = null;
+		Throwable failure = null;
+		try {
+			value = parser.invoke(StringUtils.splitWithQuotes(command, " "), null);
+		} catch (WrappedException e) {
+			errors = e.errors;
+		} catch (Throwable t) {
+			failure = t;
+		}
+		return new CommandResult(line, command, value, errors, failure, System.nanoTime() - start);
+	}
+
+	/**
+	 * The outcome of a single command of a batch.
+	 */
+	public static class CommandResult {
+
+		private final int line;
+		private final String command;
+		private final Object value;
+		private final ErrorWrapper errors;
+		private final Throwable failure;
+		private final long durationNanos;
+
+		private CommandResult(int line, String command, Object value, ErrorWrapper errors, Throwable failure, long durationNanos) {
+			this.line = line;
+			this.command = command;
+			this.value = value;
+			this.errors = errors;
+			this.failure = failure;
+			this.durationNanos = durationNanos;
+		}
+
+		/** The line of the command in the script, starting at 1 */
+		public int getLine() {
+			return line;
+		}
+
+		public String getCommand() {
+			return command;
+		}
+
+		/** The value returned by the entry point, {@code null} for void entry points */
+		public Object getValue() {
+			return value;
+		}
+
+		/** The parsing errors if the arguments were invalid, {@code null} otherwise */
+		public ErrorWrapper getErrors() {
+			return errors;
+		}
+
+		/** The exception thrown by the entry point, {@code null} if none was thrown */
+		public Throwable getFailure() {
+			return failure;
+		}
+
+		public boolean isSuccess() {
+			return errors == null && failure == null;
+		}
+
+		public long getDurationNanos() {
+			return durationNanos;
+		}
+
+	}
+
+	/**
+	 * Results of a batch, in the order of the script, and timing statistics.
+	 */
+	public static class Report {
+
+		private final List<CommandResult> results;
+		private final long totalNanos;
+		private final long[] sortedLatencies;
+
+		private Report(List<CommandResult> results, long totalNanos) {
+			this.results = Collections.unmodifiableList(results);
+			this.totalNanos = totalNanos;
+			this.sortedLatencies = new long[results.size()];
+			for(int i = 0; i < sortedLatencies.length; i++)
+				sortedLatencies[i] = results.get(i).durationNanos;
+			Arrays.sort(sortedLatencies);
+		}
+
+		public List<CommandResult> getResults() {
+			return results;
+		}
+
+		public int getFailureCount() {
+			int count = 0;
+			for(CommandResult r : results)
+				if(!r.isSuccess())
+					count++;
+			return count;
+		}
+
+		/** Wall clock time of the whole batch */
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		/** Commands run per second */
+		public double getThroughput() {
+			return totalNanos == 0 ? 0 : results.size() * 1e9 / totalNanos;
+		}
+
+		/**
+		 * Returns the latency under which {@code percentile} percents of the commands
+		 * completed (nearest-rank method), {@code 0} for an empty batch.
+		 */
+		public long getLatencyPercentile(double percentile) {
+			if(percentile < 0 || percentile > 100)
+				throw new IllegalArgumentException("Invalid percentile " + percentile);
+			if(sortedLatencies.length == 0)
+				return 0;
+			int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+			return sortedLatencies[Math.max(0, rank-1)];
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d commands, %d failed, %.1f cmd/s, latency p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms",
+					results.size(), getFailureCount(), getThroughput(),
+					getLatencyPercentile(50) / 1e6, getLatencyPercentile(90) / 1e6,
+					getLatencyPercentile(99) / 1e6, getLatencyPercentile(100) / 1e6);
+		}
+
+	}
+
+}
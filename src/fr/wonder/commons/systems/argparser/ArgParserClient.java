@@ -0,0 +1,108 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import fr.wonder.commons.systems.argparser.DaemonProtocol.Frame;
+
+/**
+ * Client of {@link ArgParserDaemon}, forwards a command line, the working
+ * directory and the standard streams of this process to a running daemon.
+ */
+public class ArgParserClient {
+
+	private ArgParserClient() {}
+
+	/**
+	 * Forwards a command to the daemon listening on {@code args[0]}, the remaining
+	 * arguments are the command line. Exits with the command exit status.
+	 */
+	public static void main(String[] args) {
+		if(args.length == 0) {
+			System.err.println("Usage: ArgParserClient <socket> [args...]");
+			System.exit(2);
+		}
+		try {
+			int status = forward(Path.of(args[0]), Arrays.copyOfRange(args, 1, args.length),
+					System.in, System.out, System.err);
+			System.exit(status);
+		} catch (IOException e) {
+			System.err.println("Cannot reach the daemon at " + args[0] + ": " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Runs a command on the daemon listening on {@code socketPath}, with the
+	 * current working directory of this process.
+	 *
+	 * @return the exit status of the command, {@code 0} if the entry point
+	 *         returned normally and {@code 2} if the arguments are invalid
+	 * @throws IOException if the daemon cannot be reached or disconnects before
+	 *         the command completes
+	 */
+	public static int forward(Path socketPath, String[] args, InputStream stdin,
+			OutputStream stdout, OutputStream stderr) throws IOException {
+
+		try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+			channel.connect(UnixDomainSocketAddress.of(socketPath));
+			DataInputStream in = new DataInputStream(new BufferedInputStream(DaemonProtocol.inputStream(channel)));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(DaemonProtocol.outputStream(channel)));
+
+			ByteArrayOutputStream command = new ByteArrayOutputStream();
+			DataOutputStream commandOut = new DataOutputStream(command);
+			DaemonProtocol.writeString(commandOut, Path.of("").toAbsolutePath().toString());
+			commandOut.writeInt(args.length);
+			for(String arg : args)
+				DaemonProtocol.writeString(commandOut, arg);
+			DaemonProtocol.writeFrame(out, DaemonProtocol.COMMAND, command.toByteArray());
+
+			Thread stdinPump = new Thread(() -> pumpStdin(stdin, out), "ArgParser client stdin");
+			stdinPump.setDaemon(true);
+			stdinPump.start();
+
+			while(true) {
+				Frame frame = DaemonProtocol.readFrame(in);
+				switch(frame.type) {
+				case DaemonProtocol.STDOUT:
+					stdout.write(frame.payload);
+					stdout.flush();
+					break;
+				case DaemonProtocol.STDERR:
+					stderr.write(frame.payload);
+					stderr.flush();
+					break;
+				case DaemonProtocol.EXIT:
+					return ByteBuffer.wrap(frame.payload).getInt();
+				default:
+					throw DaemonProtocol.unexpectedFrame(frame);
+				}
+			}
+		}
+	}
+
+	private static void pumpStdin(InputStream stdin, DataOutputStream out) {
+		byte[] buffer = new byte[8192];
+		try {
+			int read;
+			while((read = stdin.read(buffer)) != -1)
+				DaemonProtocol.writeFrame(out, DaemonProtocol.STDIN, buffer, 0, read);
+			DaemonProtocol.writeFrame(out, DaemonProtocol.STDIN_EOF, new byte[0]);
+		} catch (IOException e) {
+			// the command completed before the standard input was consumed
+		}
+	}
+
+}
@@ -0,0 +1,180 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+import fr.wonder.commons.exceptions.ErrorWrapper.WrappedException;
+import fr.wonder.commons.systems.argparser.DaemonProtocol.Frame;
+import fr.wonder.commons.systems.argparser.DaemonProtocol.FrameOutputStream;
+
+/**
+ * Hosts an {@link ArgParser} in a long-lived JVM and runs the commands sent by
+ * {@link ArgParserClient}s over a unix domain socket.
+ *
+ * <p>
+ * Entry points are run in the daemon JVM with the working directory, standard
+ * input, output and error of the client. Every client is served on its own
+ * thread, the standard streams of the JVM are replaced once by streams that
+ * dispatch to those of the client whose command runs on the current thread
+ * (see {@link DaemonStreams}). Output of other threads of the daemon JVM goes
+ * to its original streams.
+ *
+ * <p>
+ * Example usage, the daemon is started once:
+ * <blockquote><pre>
+ * ArgParser parser = new ArgParser("mytool", MyEntryPoints.class);
+ * new ArgParserDaemon(parser, Path.of("/tmp/mytool.sock")).serve();
+ * </pre></blockquote>
+ * and commands are sent using {@link ArgParserClient#main(String[])}.
+ *
+ * <p>
+ * Note that default values of {@code File} arguments are resolved when the
+ * {@code ArgParser} is created, relative to the daemon working directory.
+ */
+public class ArgParserDaemon implements Closeable {
+
+	/** exit status of commands whose arguments are invalid, as conventional for usage errors */
+	static final int USAGE_ERROR_STATUS = 2;
+
+	private final ArgParser parser;
+	private final Path socketPath;
+
+	private ServerSocketChannel server;
+
+	public ArgParserDaemon(ArgParser parser, Path socketPath) {
+		this.parser = Objects.requireNonNull(parser);
+		this.socketPath = Objects.requireNonNull(socketPath);
+	}
+
+	/**
+	 * Binds the socket and serves clients until {@link #close()} is called.
+	 * A stale socket file left by a previous daemon is removed.
+	 *
+	 * @throws IOException if the socket cannot be bound
+	 */
+	public void serve() throws IOException {
+		ServerSocketChannel server;
+		synchronized (this) {
+			if(this.server != null)
+				throw new IllegalStateException("The daemon is already running");
+			Files.deleteIfExists(socketPath);
+			DaemonStreams.install();
+			server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+			server.bind(UnixDomainSocketAddress.of(socketPath));
+			this.server = server;
+		}
+		try {
+			while(server.isOpen()) {
+				SocketChannel client;
+				try {
+					client = server.accept();
+				} catch (IOException e) {
+					if(!server.isOpen())
+						break;
+					throw e;
+				}
+				Thread handler = new Thread(() -> serveClient(client), "ArgParser daemon client");
+				handler.start();
+			}
+		} finally {
+			close();
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if(server == null)
+			return;
+		server.close();
+		server = null;
+		Files.deleteIfExists(socketPath);
+	}
+
+	private void serveClient(SocketChannel client) {
+		try (client) {
+			handleClient(client);
+		} catch (IOException e) {
+			// the client disconnected, nothing to report to
+		}
+	}
+
+	private void handleClient(SocketChannel client) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(DaemonProtocol.inputStream(client)));
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(DaemonProtocol.outputStream(client)));
+
+		Frame command = DaemonProtocol.readFrame(in);
+		if(command.type != DaemonProtocol.COMMAND)
+			throw DaemonProtocol.unexpectedFrame(command);
+		DataInputStream commandIn = new DataInputStream(new ByteArrayInputStream(command.payload));
+		File workingDir = new File(DaemonProtocol.readString(commandIn));
+		String[] args = new String[DaemonProtocol.readCount(commandIn, 4)];
+		for(int i = 0; i < args.length; i++)
+			args[i] = DaemonProtocol.readString(commandIn);
+
+		PipedInputStream stdin = new PipedInputStream(8192);
+		PipedOutputStream stdinSink = new PipedOutputStream(stdin);
+		Thread stdinPump = new Thread(() -> pumpStdin(in, stdinSink), "ArgParser daemon stdin");
+		stdinPump.setDaemon(true);
+		stdinPump.start();
+
+		PrintStream stdout = new PrintStream(new BufferedOutputStream(new FrameOutputStream(out, DaemonProtocol.STDOUT)), false);
+		PrintStream stderr = new PrintStream(new BufferedOutputStream(new FrameOutputStream(out, DaemonProtocol.STDERR)), false);
+
+		int exitStatus = runCommand(args, workingDir, stdin, stdout, stderr);
+
+		stdout.flush();
+		stderr.flush();
+		stdin.close(); // unblocks the stdin pump if the command did not consume its input
+		DaemonProtocol.writeFrame(out, DaemonProtocol.EXIT, ByteBuffer.allocate(4).putInt(exitStatus).array());
+	}
+
+	private int runCommand(String[] args, File workingDir, InputStream stdin, PrintStream stdout, PrintStream stderr) {
+		DaemonStreams.setClientStreams(stdin, stdout, stderr);
+		try {
+			Object result = parser.invoke(args, workingDir);
+			return result instanceof FanOutResult ? ((FanOutResult) result).getExitStatus() : 0;
+		} catch (WrappedException e) {
+			e.errors.dump(); // to the client standard error
+			return USAGE_ERROR_STATUS;
+		} catch (Throwable t) {
+			t.printStackTrace();
+			return 1;
+		} finally {
+			DaemonStreams.setClientStreams(null, null, null);
+		}
+	}
+
+	private static void pumpStdin(DataInputStream in, PipedOutputStream stdin) {
+		try (stdin) {
+			while(true) {
+				Frame frame = DaemonProtocol.readFrame(in);
+				if(frame.type == DaemonProtocol.STDIN_EOF)
+					break;
+				if(frame.type != DaemonProtocol.STDIN)
+					throw DaemonProtocol.unexpectedFrame(frame);
+				stdin.write(frame.payload);
+			}
+		} catch (IOException e) {
+			// the client closed its standard input or disconnected
+		}
+	}
+
+}
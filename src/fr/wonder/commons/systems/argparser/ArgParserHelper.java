@@ -1,15 +1,31 @@
 package fr.wonder.commons.systems.argparser;
 
 import java.io.File;
+import java.io.InputStream;
+import java.io.Reader;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.BaseStream;
 
+import fr.wonder.commons.systems.argparser.annotations.Cacheable;
 import fr.wonder.commons.systems.argparser.annotations.EntryPoint;
+import fr.wonder.commons.systems.argparser.annotations.FanOut;
+import fr.wonder.commons.systems.argparser.annotations.Limits;
 import fr.wonder.commons.systems.argparser.annotations.OptionClass;
 import fr.wonder.commons.systems.reflection.PrimitiveUtils;
 
 public class ArgParserHelper {
+	
+	// compiled once, every path word and option is checked when a parser is created
+	private static final Pattern BRANCH_NAME = Pattern.compile("[a-zA-Z]+([a-zA-Z\\-0-9]+[a-zA-Z0-9])?");
+	private static final Pattern OPTION_NAME = Pattern.compile("\\-\\-[a-zA-Z]+([a-zA-Z\\-0-9]+[a-zA-Z0-9])?");
+	private static final Pattern OPTION_SHORTHAND = Pattern.compile("\\-[a-zA-Z]");
 
 	public static void validateEntryMethodParameters(Method method) throws NoSuchMethodException, SecurityException {
 		if(!Modifier.isStatic(method.getModifiers()))
@@ -18,7 +34,47 @@ public class ArgParserHelper {
 			throw new IllegalArgumentException("Method " + method + " cannot be accessed");
 		Parameter[] params = method.getParameters();
 		
+		if(method.isAnnotationPresent(Cacheable.class)) {
+			if(method.getReturnType() == void.class)
+				throw new IllegalArgumentException("Cacheable entry point " + method + " must return a value");
+			if(params.length > 0 && InputArgument.isInputType(params[params.length-1].getType()))
+				throw new IllegalArgumentException("Cacheable entry point " + method + " cannot take an input argument");
+			if(isSingleUseType(method.getReturnType()))
+				throw new IllegalArgumentException("Cacheable entry point " + method + " cannot return a value that can only be read once");
+			if(!ResultCache.canBeCached(method.getReturnType()))
+				throw new IllegalArgumentException("Cacheable entry point " + method + " must declare its collection result as a"
+						+ " List, Set, Collection, Iterable or Map, results are cached as unmodifiable copies");
+			Cacheable cacheable = method.getAnnotation(Cacheable.class);
+			if(cacheable.maxSize() <= 0)
+				throw new IllegalArgumentException("Invalid cache size on " + method);
+			if(cacheable.ttlMillis() <= 0)
+				throw new IllegalArgumentException("Invalid cache time to live on " + method);
+		}
+		
+		FanOut fanOut = method.getAnnotation(FanOut.class);
+		if(fanOut != null) {
+			if(params.length == (doesMethodUseOptions(method) ? 1 : 0))
+				throw new IllegalArgumentException("Fan-out entry point " + method + " must take an argument");
+			if(InputArgument.isInputType(params[params.length-1].getType()))
+				throw new IllegalArgumentException("Fan-out entry point " + method + " cannot take an input argument");
+			if(fanOut.parallelism() < 0)
+				throw new IllegalArgumentException("Invalid fan-out parallelism on " + method);
+		}
+		
+		Limits limits = method.getAnnotation(Limits.class);
+		if(limits != null) {
+			if(limits.timeoutMillis() < 0)
+				throw new IllegalArgumentException("Invalid time limit on " + method);
+			if(limits.maxConcurrent() < 0 || limits.queueTimeoutMillis() < 0)
+				throw new IllegalArgumentException("Invalid concurrency limit on " + method);
+		}
+		
 		for(int i = doesMethodUseOptions(method) ? 1 : 0; i < params.length; i++) {
+			if(InputArgument.isInputType(params[i].getType())) {
+				if(i != params.length-1)
+					throw new IllegalArgumentException("Input argument " + params[i].getName() + " must be the last argument of " + method);
+				continue;
+			}
 			if(!canBeArgumentType(params[i].getType())) {
 				throw new IllegalArgumentException("Argument " + params[i].getName() + " has an invalid type " + params[i].getType().getName()
 						+ ", only the first argument can be a @OptionClass");
@@ -26,29 +82,37 @@ public class ArgParserHelper {
 		}
 	}
 	
+	/** Returns true for streams, iterators and channels, which are consumed by their first reader */
+	private static boolean isSingleUseType(Class<?> type) {
+		return BaseStream.class.isAssignableFrom(type) || Iterator.class.isAssignableFrom(type) ||
+				ReadableByteChannel.class.isAssignableFrom(type) || InputStream.class.isAssignableFrom(type) ||
+				Reader.class.isAssignableFrom(type);
+	}
+	
 	public static boolean isRootBranch(String text) {
 		return EntryPoint.ROOT_ENTRY_POINT.equals(text);
 	}
 
 	public static boolean canBeBranchName(String text) {
-		return (text.matches("[a-zA-Z]+([a-zA-Z\\-0-9]+[a-zA-Z0-9])?") ||
+		return (BRANCH_NAME.matcher(text).matches() ||
 				isRootBranch(text)) &&
 				!isHelpPrint(text);
 	}
 
 	public static boolean canBeOptionName(String text) {
-		return text.matches("\\-\\-[a-zA-Z]+([a-zA-Z\\-0-9]+[a-zA-Z0-9])?") &&
+		return OPTION_NAME.matcher(text).matches() &&
 				!isHelpPrint(text);
 	}
 
 	public static boolean canBeOptionShortand(String text) {
-		return text.matches("\\-[a-zA-Z]") &&
+		return OPTION_SHORTHAND.matcher(text).matches() &&
 				!isHelpPrint(text);
 	}
 
 	public static boolean canBeArgumentType(Class<?> type) {
 		return type == String.class ||
 				type == File.class ||
+				type == Path.class ||
 				type.isEnum() ||
 				PrimitiveUtils.isPrimitiveType(type) ||
 				type.isAnnotationPresent(OptionClass.class);
@@ -65,4 +129,17 @@ public class ArgParserHelper {
 				arg.equals("?");
 	}
 
+	/**
+	 * Formats suggested corrections for an unknown name, returns an empty string
+	 * if there are none.
+	 */
+	static String getSuggestionsMessage(List<String> suggestions) {
+		if(suggestions.isEmpty())
+			return "";
+		if(suggestions.size() == 1)
+			return ", did you mean " + suggestions.get(0) + "?";
+		return ", did you mean " + String.join(", ", suggestions.subList(0, suggestions.size()-1))
+				+ " or " + suggestions.get(suggestions.size()-1) + "?";
+	}
+
 }
@@ -0,0 +1,171 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import fr.wonder.commons.exceptions.ErrorWrapper.WrappedException;
+import fr.wonder.commons.utils.StringUtils;
+
+/**
+ * Interactive shell running the commands of an {@link ArgParser}.
+ *
+ * <p>
+ * Each line read is run with {@link ArgParser#run(String)}, the shell exits on
+ * end of input or on {@code exit} (unless {@code exit} is an entry point path).
+ * Lines chaining commands with {@code |} are run with
+ * {@link ArgParser#runPipeline(String)} and the result of the last command is
+ * printed.
+ *
+ * <p>
+ * Completions are served from prefix trees built once for every branch of the
+ * entry point tree and every option class, they can be queried using
+ * {@link #complete(String)} to plug the shell into a line editor. When the
+ * terminal does not handle tabs itself, a line containing a tab character is
+ * not run, the completions of the text preceding the tab are printed instead.
+ */
+public class ArgParserShell {
+
+	private final ArgParser parser;
+	private final Map<Branch, CompletionTrie> branchCompletions = new HashMap<>();
+	private final Map<ProcessOptions, CompletionTrie> optionCompletions = new HashMap<>();
+	private final CompletionTrie allOptionsCompletion;
+
+	public ArgParserShell(ArgParser parser) {
+		this.parser = Objects.requireNonNull(parser);
+		parser.loadAllBranches();
+		List<String> allOptions = new ArrayList<>(parser.getAllOptionNames());
+		allOptions.add("--help");
+		this.allOptionsCompletion = new CompletionTrie(allOptions);
+		indexBranch(parser.getTreeRoot());
+	}
+
+	private void indexBranch(Branch branch) {
+		if(branch.entryPoint != null) {
+			ProcessOptions options = branch.entryPoint.getOptions();
+			if(options != null && !optionCompletions.containsKey(options))
+				optionCompletions.put(options, new CompletionTrie(options.getOptionFields().keySet()));
+		} else {
+			branchCompletions.put(branch, new CompletionTrie(branch.subBranches.keySet()));
+			for(Branch sub : branch.subBranches.values())
+				indexBranch(sub);
+		}
+	}
+
+	/**
+	 * Runs the shell on the standard input and output.
+	 */
+	public void run() throws IOException {
+		run(new BufferedReader(new InputStreamReader(System.in)), System.out);
+	}
+
+	/**
+	 * Runs the shell until {@code input} is exhausted. Prompts and completions are
+	 * printed to {@code out}, commands print to the standard output.
+	 */
+	public void run(BufferedReader input, PrintStream out) throws IOException {
+		String prompt = parser.getProgName() + "> ";
+		while(true) {
+			out.print(prompt);
+			out.flush();
+			String line = input.readLine();
+			if(line == null)
+				break;
+
+			int tab = line.indexOf('\t');
+			if(tab != -1) {
+				printCompletions(line.substring(0, tab), out);
+				continue;
+			}
+
+			line = line.strip();
+			if(line.isEmpty())
+				continue;
+			if(line.equals("exit") && !parser.getTreeRoot().subBranches.containsKey("exit"))
+				break;
+
+			try {
+				if(Arrays.asList(StringUtils.splitWithQuotes(line, " ")).contains("|"))
+					printResult(parser.runPipeline(line), out);
+				else
+					parser.run(line);
+			} catch (WrappedException e) {
+				e.errors.dump();
+			} catch (RuntimeException | Error e) {
+				e.printStackTrace(out);
+			}
+		}
+	}
+	
+	/** Prints the value returned by the last command of a pipeline, one line per element */
+	private static void printResult(Object result, PrintStream out) {
+		if(result instanceof Stream) {
+			try(Stream<?> stream = (Stream<?>) result) {
+				stream.forEachOrdered(out::println);
+			}
+		} else if(result instanceof Iterator)
+			((Iterator<?>) result).forEachRemaining(out::println);
+		else if(result instanceof Iterable)
+			((Iterable<?>) result).forEach(out::println);
+		else if(result != null)
+			out.println(result);
+	}
+
+	private void printCompletions(String line, PrintStream out) {
+		List<String> completions = complete(line);
+		if(completions.size() == 1) {
+			int partialStart = line.lastIndexOf(' ') + 1;
+			out.println(line.substring(0, partialStart) + completions.get(0));
+		} else if(!completions.isEmpty()) {
+			out.println(StringUtils.join("  ", completions));
+		}
+	}
+
+	/**
+	 * Returns the possible completions of the last word of {@code line}, which
+	 * are either branch names or option names depending on the position of the
+	 * cursor in the command.
+	 */
+	public List<String> complete(String line) {
+		String[] words = StringUtils.splitWithQuotes(line, " ");
+		boolean endsWithPartial = !line.isEmpty() && !line.endsWith(" ") && words.length > 0;
+		int fullWordCount = endsWithPartial ? words.length-1 : words.length;
+		String partial = endsWithPartial ? words[words.length-1] : "";
+
+		Branch branch = parser.getTreeRoot();
+		for(int i = 0; i < fullWordCount; i++) {
+			String word = words[i];
+			if(word.startsWith("-")) {
+				if(parser.doesOptionTakeArgument(word) && ++i == fullWordCount)
+					return Collections.emptyList(); // the partial word is the option value
+			} else if(i == 0 && ArgParserHelper.isHelpPrint(word)) {
+				continue;
+			} else if(branch.entryPoint == null) {
+				branch = branch.subBranches.get(word);
+				if(branch == null)
+					return Collections.emptyList();
+			}
+		}
+
+		if(partial.startsWith("-")) {
+			if(branch.entryPoint == null)
+				return allOptionsCompletion.complete(partial);
+			ProcessOptions options = branch.entryPoint.getOptions();
+			return options == null ? Collections.emptyList() : optionCompletions.get(options).complete(partial);
+		}
+		if(branch.entryPoint == null)
+			return branchCompletions.get(branch).complete(partial);
+		return Collections.emptyList();
+	}
+
+}
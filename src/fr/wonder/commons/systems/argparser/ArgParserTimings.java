@@ -0,0 +1,171 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Accumulates the time spent by an {@link ArgParser} in each phase of its
+ * construction and of the commands it runs.
+ *
+ * <p>
+ * Timings are collected once attached with {@link ArgParser#setTimings(ArgParserTimings)},
+ * the same instance can be shared by multiple parsers and threads. Each
+ * recorded phase is also emitted as a {@code fr.wonder.argparser.Phase} JFR
+ * event when a flight recording enables it.
+ *
+ * <p>
+ * Example usage:
+ * <blockquote><pre>
+ * ArgParserTimings timings = new ArgParserTimings();
+ * parser.setTimings(timings);
+ * parser.run(args);
+ * System.err.println(timings);
+ * </pre></blockquote>
+ */
+public class ArgParserTimings {
+
+	public static enum Phase {
+		/** Reflection of the entry point class, in the parser constructor */
+		POPULATE,
+		/** Loading of a class mounted from an {@link EntryPointIndex} */
+		LOAD_MOUNT,
+		/** Splitting of a command line given as a single string */
+		TOKENIZE,
+		/** Reading of {@code @file} arguments, when they are enabled */
+		EXPAND_ARGUMENT_FILES,
+		/** Separation of options and arguments and entry point lookup, including {@link #LOAD_MOUNT} */
+		READ_ARGUMENTS,
+		/** Conversion of arguments to the entry point parameter types */
+		CONVERT_ARGUMENTS,
+		/** Conversion of options when parsing, and creation of the option class instance when executing */
+		CREATE_OPTIONS,
+		/** Execution of the entry point method */
+		INVOKE
+	}
+
+	private final LongAdder[] counts = new LongAdder[Phase.values().length];
+	private final LongAdder[] totals = new LongAdder[Phase.values().length];
+	private final LongAccumulator[] maximums = new LongAccumulator[Phase.values().length];
+
+	public ArgParserTimings() {
+		for(int i = 0; i < counts.length; i++) {
+			counts[i] = new LongAdder();
+			totals[i] = new LongAdder();
+			maximums[i] = new LongAccumulator(Math::max, 0);
+		}
+	}
+
+	void record(String progName, Phase phase, long durationNanos) {
+		int i = phase.ordinal();
+		counts[i].increment();
+		totals[i].add(durationNanos);
+		maximums[i].accumulate(durationNanos);
+		PhaseEvent event = new PhaseEvent();
+		if(event.shouldCommit()) {
+			event.program = progName;
+			event.phase = phase.name();
+			event.phaseDuration = durationNanos;
+			event.commit();
+		}
+	}
+
+	/** Returns the statistics of every phase, in execution order */
+	public Map<Phase, PhaseStats> getReport() {
+		Map<Phase, PhaseStats> report = new EnumMap<>(Phase.class);
+		for(Phase phase : Phase.values())
+			report.put(phase, getStats(phase));
+		return report;
+	}
+
+	public PhaseStats getStats(Phase phase) {
+		int i = phase.ordinal();
+		return new PhaseStats(phase, counts[i].sum(), totals[i].sum(), maximums[i].get());
+	}
+
+	public void reset() {
+		for(int i = 0; i < counts.length; i++) {
+			counts[i].reset();
+			totals[i].reset();
+			maximums[i].reset();
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for(PhaseStats stats : getReport().values()) {
+			if(stats.getCount() != 0)
+				sb.append(stats).append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Timings of a single phase, all durations are in nanoseconds.
+	 */
+	public static class PhaseStats {
+
+		private final Phase phase;
+		private final long count;
+		private final long totalNanos;
+		private final long maxNanos;
+
+		private PhaseStats(Phase phase, long count, long totalNanos, long maxNanos) {
+			this.phase = phase;
+			this.count = count;
+			this.totalNanos = totalNanos;
+			this.maxNanos = maxNanos;
+		}
+
+		public Phase getPhase() {
+			return phase;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+
+		public long getMeanNanos() {
+			return count == 0 ? 0 : totalNanos / count;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-17s %6d calls, total %.3fms, mean %.3fms, max %.3fms",
+					phase, count, totalNanos / 1e6, getMeanNanos() / 1e6, maxNanos / 1e6);
+		}
+
+	}
+
+	@Name("fr.wonder.argparser.Phase")
+	@Label("ArgParser Phase")
+	@Category("ArgParser")
+	private static class PhaseEvent extends Event {
+
+		@Label("Program")
+		String program;
+		@Label("Phase")
+		String phase;
+		@Label("Phase Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long phaseDuration;
+
+	}
+
+}
@@ -0,0 +1,69 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Tokenizer of an {@code @argfile}, reading the file in chunks so that files
+ * holding millions of arguments are never loaded in a single string.
+ *
+ * <p>
+ * Arguments are separated by spaces, tabs and line breaks. As with
+ * {@link fr.wonder.commons.utils.StringUtils#splitWithQuotes(String, String)}
+ * double quotes group separators into a single argument and a backslash
+ * escapes the character that follows it. The file is read as UTF-8.
+ */
+final class ArgumentFile {
+
+	private ArgumentFile() {}
+
+	/**
+	 * Reads the arguments listed in {@code file} and appends them to
+	 * {@code outArguments}.
+	 */
+	static void readArguments(Path file, List<String> outArguments) throws IOException {
+		try (Reader reader = Files.newBufferedReader(file)) {
+			char[] chunk = new char[8192];
+			StringBuilder token = new StringBuilder();
+			boolean quoted = false;
+			boolean escaped = false;
+			boolean any = false;
+			for(int read; (read = reader.read(chunk)) != -1; ) {
+				for(int i = 0; i < read; i++) {
+					char c = chunk[i];
+					if(escaped) {
+						escaped = false;
+					} else if(c == '\\') {
+						escaped = true;
+						any = true;
+						continue;
+					} else if(c == '"') {
+						quoted = !quoted;
+						any = true;
+						continue;
+					} else if(!quoted && isSeparator(c)) {
+						if(any)
+							outArguments.add(token.toString());
+						token.setLength(0);
+						any = false;
+						continue;
+					}
+					token.append(c);
+					any = true;
+				}
+			}
+			if(escaped)
+				token.append('\\'); // a trailing backslash is kept
+			if(any)
+				outArguments.add(token.toString());
+		}
+	}
+
+	private static boolean isSeparator(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+
+}
@@ -0,0 +1,128 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Burkhard-Keller tree over a set of words, used to suggest close matches to
+ * mistyped branch and option names.
+ *
+ * <p>
+ * Words are indexed by their Levenshtein distance to their parent node. When
+ * searching words at most {@code d} edits away from a query at distance
+ * {@code k} of a node, only the children at distance {@code [k-d, k+d]} of that
+ * node can match (triangle inequality), so most of the tree is never visited.
+ */
+final class BKTree {
+
+	/** Maximum number of suggestions returned by {@link #suggest(String)} */
+	private static final int MAX_SUGGESTIONS = 3;
+
+	private Node root;
+
+	BKTree(Collection<String> words) {
+		for(String word : words)
+			add(word);
+	}
+
+	private void add(String word) {
+		if(root == null) {
+			root = new Node(word);
+			return;
+		}
+		Node node = root;
+		while(true) {
+			int distance = distance(word, node.word);
+			if(distance == 0)
+				return;
+			Node child = node.children.get(distance);
+			if(child == null) {
+				node.children.put(distance, new Node(word));
+				return;
+			}
+			node = child;
+		}
+	}
+
+	/**
+	 * Returns the words at most {@code maxDistance} edits away from {@code word},
+	 * closest first.
+	 */
+	List<String> search(String word, int maxDistance) {
+		List<Match> matches = new ArrayList<>();
+		if(root != null)
+			search(root, word, maxDistance, matches);
+		matches.sort(Comparator.<Match>comparingInt(m -> m.distance).thenComparing(m -> m.word));
+		List<String> words = new ArrayList<>(matches.size());
+		for(Match m : matches)
+			words.add(m.word);
+		return words;
+	}
+
+	private static void search(Node node, String word, int maxDistance, List<Match> matches) {
+		int distance = distance(word, node.word);
+		if(distance <= maxDistance)
+			matches.add(new Match(node.word, distance));
+		for(int d = Math.max(1, distance - maxDistance); d <= distance + maxDistance; d++) {
+			Node child = node.children.get(d);
+			if(child != null)
+				search(child, word, maxDistance, matches);
+		}
+	}
+
+	/**
+	 * Returns the few closest words to {@code word}, the tolerated distance grows
+	 * with the length of the word.
+	 */
+	List<String> suggest(String word) {
+		List<String> matches = search(word, Math.max(1, Math.min(3, word.length() / 3)));
+		return matches.size() > MAX_SUGGESTIONS ? matches.subList(0, MAX_SUGGESTIONS) : matches;
+	}
+
+	/** Levenshtein distance between two words */
+	static int distance(String a, String b) {
+		int[] previous = new int[b.length()+1];
+		int[] current = new int[b.length()+1];
+		for(int j = 0; j <= b.length(); j++)
+			previous[j] = j;
+		for(int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			for(int j = 1; j <= b.length(); j++) {
+				int substitution = previous[j-1] + (a.charAt(i-1) == b.charAt(j-1) ? 0 : 1);
+				current[j] = Math.min(substitution, Math.min(previous[j], current[j-1]) + 1);
+			}
+			int[] tmp = previous;
+			previous = current;
+			current = tmp;
+		}
+		return previous[b.length()];
+	}
+
+	private static class Node {
+
+		final String word;
+		final Map<Integer, Node> children = new HashMap<>(2);
+
+		Node(String word) {
+			this.word = word;
+		}
+
+	}
+
+	private static class Match {
+
+		final String word;
+		final int distance;
+
+		Match(String word, int distance) {
+			this.word = word;
+			this.distance = distance;
+		}
+
+	}
+
+}
@@ -0,0 +1,36 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+class Branch {
+	
+	final Map<String, Branch> subBranches = new HashMap<>(0);
+	EntryPointFunction entryPoint = null;
+	/** Index of the sub branches names, built when a correction is first suggested */
+	private volatile BKTree subBranchesIndex;
+	/**
+	 * Options of the entry points below this branch, built when first needed and
+	 * reset when a class is mounted below it. Not used by entry point branches,
+	 * which use the table of their option class.
+	 */
+	volatile OptionTable optionTable;
+	
+	/** Path of this branch if it is mounted from an index, see {@link EntryPointIndex} */
+	String mountPath;
+	/**
+	 * Name of the class declaring the entry points of this branch, {@code null}
+	 * once they are loaded. Set last when loading so that reading {@code null}
+	 * guarantees the branch content is visible.
+	 */
+	volatile String mountedClass;
+	
+	/** Returns the index of the sub branches names, used to suggest corrections */
+	BKTree getSubBranchesIndex() {
+		BKTree index = subBranchesIndex;
+		if(index == null)
+			subBranchesIndex = index = new BKTree(subBranches.keySet());
+		return index;
+	}
+	
+}
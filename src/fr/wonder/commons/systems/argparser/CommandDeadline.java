@@ -0,0 +1,87 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interrupts the thread running a command when its time limit is reached.
+ * 
+ * <p>
+ * The interrupt is only sent while the command runs: once {@link #finish()}
+ * returned the thread can no longer be interrupted by this deadline, and an
+ * interrupt sent by it that was not consumed by the command is cleared.
+ */
+final class CommandDeadline implements Runnable {
+
+	private final Thread thread;
+	private final long timeoutNanos;
+	private final ScheduledFuture<?> alarm;
+	private boolean expired;
+	private boolean finished;
+
+	private CommandDeadline(long timeoutNanos) {
+		this.thread = Thread.currentThread();
+		this.timeoutNanos = timeoutNanos;
+		this.alarm = Timer.INSTANCE.schedule(this, timeoutNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/** Starts the deadline of a command run by the current thread */
+	static CommandDeadline start(long timeout, TimeUnit unit) {
+		return new CommandDeadline(unit.toNanos(timeout));
+	}
+
+	@Override
+	public synchronized void run() {
+		if(finished)
+			return;
+		expired = true;
+		thread.interrupt();
+	}
+
+	/**
+	 * Stops the deadline, must be called by the thread running the command.
+	 * Can be called several times.
+	 * 
+	 * @return whether the time limit was reached before the command finished
+	 */
+	boolean finish() {
+		synchronized (this) {
+			if(finished)
+				return expired;
+			finished = true;
+		}
+		alarm.cancel(false);
+		if(expired)
+			Thread.interrupted(); // sent by this deadline, not meant for the caller
+		return expired;
+	}
+
+	CancellationException timeoutException(ParsedCommand command, Throwable failure) {
+		CancellationException e = new CancellationException("Command '" + command.getEntryPath()
+				+ "' timed out after " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms");
+		if(failure != null)
+			e.initCause(failure);
+		return e;
+	}
+
+	/** Lazily created thread triggering all deadlines */
+	private static class Timer {
+
+		static final ScheduledThreadPoolExecutor INSTANCE = createTimer();
+
+		private static ScheduledThreadPoolExecutor createTimer() {
+			ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+				Thread t = new Thread(r, "ArgParser command deadlines");
+				t.setDaemon(true);
+				return t;
+			});
+			// most commands finish in time, do not keep their cancelled alarms
+			timer.setRemoveOnCancelPolicy(true);
+			return timer;
+		}
+
+	}
+
+}
@@ -0,0 +1,151 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.util.Arrays;
+import java.util.List;
+
+import fr.wonder.commons.exceptions.ErrorWrapper;
+import fr.wonder.commons.systems.argparser.annotations.EntryPoint;
+
+/**
+ * The outcome of the validation of a single command line by
+ * {@link ArgParser#validate(java.util.List)}.
+ */
+public final class CommandDiagnostic {
+
+	/**
+	 * A problem found in a command, an error or a check that depends on the
+	 * files of the host running the command.
+	 */
+	public static final class Problem {
+
+		private final ParseErrorCode code;
+		private final int wordIndex;
+		private final String detail;
+		private final boolean fatal;
+
+		Problem(ParseErrorCode code, int wordIndex, String detail, boolean fatal) {
+			this.code = code;
+			this.wordIndex = wordIndex;
+			this.detail = detail;
+			this.fatal = fatal;
+		}
+
+		public ParseErrorCode getCode() {
+			return code;
+		}
+
+		/**
+		 * The index of the word of the command the problem concerns, after
+		 * {@code @argfile} expansion, {@code -1} if it does not concern a single
+		 * word. Problems of {@code @argfile}s are reported at the index of their
+		 * {@code @} word.
+		 */
+		public int getWordIndex() {
+			return wordIndex;
+		}
+
+		/** The message describing the problem, as printed when the command is run */
+		public String getDetail() {
+			return detail;
+		}
+
+		/**
+		 * Returns false for problems that could not be checked on this host: input
+		 * files and {@code @argfile}s that do not exist here, they may exist on
+		 * the host running the command.
+		 */
+		public boolean isFatal() {
+			return fatal;
+		}
+
+		@Override
+		public String toString() {
+			return (fatal ? "" : "unchecked ") + code + (wordIndex == -1 ? "" : " at word " + wordIndex) + ": " + detail;
+		}
+
+	}
+
+	private final int index;
+	private final String[] command;
+	private final String entryPath;
+	private final ErrorWrapper errors;
+	private final List<Problem> problems;
+	private final Throwable failure;
+	private final boolean checked;
+
+	CommandDiagnostic(int index, String[] command, String entryPath, ErrorWrapper errors,
+			List<Problem> problems, Throwable failure, boolean checked) {
+		this.index = index;
+		this.command = command;
+		this.entryPath = entryPath;
+		this.errors = errors;
+		this.problems = List.copyOf(problems);
+		this.failure = failure;
+		this.checked = checked;
+	}
+
+	/** The index of the command in the validated list */
+	public int getIndex() {
+		return index;
+	}
+
+	public String[] getCommand() {
+		return command.clone();
+	}
+
+	/**
+	 * The path of the entry point the command resolves to, see
+	 * {@link EntryPoint#path()}, {@code null} if the command is invalid or
+	 * prints help.
+	 */
+	public String getEntryPath() {
+		return entryPath;
+	}
+
+	/** The errors found in the command, formatted, {@code null} if it is valid */
+	public ErrorWrapper getErrors() {
+		return errors;
+	}
+
+	/**
+	 * The errors and non-fatal problems found in the command, sorted by word
+	 * index, problems that do not concern a single word last.
+	 */
+	public List<Problem> getProblems() {
+		return problems;
+	}
+
+	/**
+	 * The exception thrown while validating the command, typically when a
+	 * mounted class cannot be loaded, {@code null} if none was thrown.
+	 */
+	public Throwable getFailure() {
+		return failure;
+	}
+
+	/**
+	 * Returns false if the command could not be checked at all, because one of
+	 * its {@code @argfile}s does not exist on this host. Such a command is not
+	 * {@link #isValid() valid}, it may be on the host running it.
+	 */
+	public boolean isChecked() {
+		return checked;
+	}
+
+	/**
+	 * Returns true if the command was {@link #isChecked() checked} and is
+	 * valid, it may still have {@link Problem#isFatal() non-fatal} problems.
+	 */
+	public boolean isValid() {
+		return checked && errors == null && failure == null;
+	}
+
+	@Override
+	public String toString() {
+		String status = errors != null ? "invalid arguments" : failure != null ? "failed: " + failure
+				: !checked ? "not checked, " + problems.size() + " unchecked"
+				: problems.isEmpty() ? "valid" : "valid, " + problems.size() + " unchecked";
+		return "#" + index + " " + Arrays.toString(command) + ": " + status;
+	}
+
+}
@@ -0,0 +1,108 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The options read from a command, with their slot in the {@link OptionTable}
+ * of the option class of the entry point.
+ *
+ * <p>
+ * Options are usually given after the path of their entry point and are
+ * resolved as they are read. Options given before the entry point is known
+ * are resolved by {@link #resolve(OptionTable)}. When an option is given
+ * several times its last value is kept.
+ */
+final class CommandOptions {
+
+	private String[] names;
+	private String[] values;
+	/** slots in the entry point table, {@code -1} for unknown or unresolved options */
+	private int[] slots;
+	/** whether each option was resolved against the entry point table */
+	private boolean[] resolved;
+	/** index of the word of each option in the command */
+	private int[] words;
+	private int size;
+
+	/**
+	 * Adds an option read from the {@code word}-th word of the command,
+	 * {@code table} is the entry point table if it is known, {@code null}
+	 * otherwise.
+	 */
+	void add(String name, String value, OptionTable table, int word) {
+		if(names == null) {
+			names = new String[4];
+			values = new String[4];
+			slots = new int[4];
+			resolved = new boolean[4];
+			words = new int[4];
+		} else if(size == names.length) {
+			names = Arrays.copyOf(names, size*2);
+			values = Arrays.copyOf(values, size*2);
+			slots = Arrays.copyOf(slots, size*2);
+			resolved = Arrays.copyOf(resolved, size*2);
+			words = Arrays.copyOf(words, size*2);
+		}
+		for(int i = 0; i < size; i++) {
+			if(names[i].equals(name)) {
+				values[i] = value;
+				words[i] = word;
+				return;
+			}
+		}
+		names[size] = name;
+		values[size] = value;
+		slots[size] = table == null ? -1 : table.indexOf(name);
+		resolved[size] = table != null;
+		words[size] = word;
+		size++;
+	}
+
+	/**
+	 * Resolves the options read before the entry point was known against its
+	 * {@code table}.
+	 */
+	void resolve(OptionTable table) {
+		for(int i = 0; i < size; i++) {
+			if(!resolved[i]) {
+				slots[i] = table.indexOf(names[i]);
+				resolved[i] = true;
+			}
+		}
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	String getName(int i) {
+		return names[i];
+	}
+
+	String getValue(int i) {
+		return values[i];
+	}
+
+	int getWord(int i) {
+		return words[i];
+	}
+
+	/** Returns the slot of the {@code i}-th option, {@code -1} if it is unknown */
+	int getSlot(int i) {
+		return slots[i];
+	}
+
+	List<String> getNames() {
+		List<String> list = new ArrayList<>(size);
+		for(int i = 0; i < size; i++)
+			list.add(names[i]);
+		return list;
+	}
+
+}
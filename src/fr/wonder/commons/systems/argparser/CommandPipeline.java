@@ -0,0 +1,294 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Runs parsed commands as a pipeline, each command on its own thread.
+ *
+ * <p>
+ * The objects produced by a command are sent to the next one through a
+ * bounded queue, the next command receives them through its stream or
+ * iterator input parameter (see {@link InputArgument}). A command produces the
+ * elements of the {@code Stream}, {@code Iterator} or {@code Iterable} it
+ * returns, or the single value it returns if it is anything else and not
+ * {@code null}.
+ *
+ * <p>
+ * When a command returns before having consumed all of its input the commands
+ * before it are interrupted. When a command fails every other command is
+ * interrupted and the failure is rethrown by {@link #run()}.
+ *
+ * <p>
+ * When the last command returns a {@code Stream} or an {@code Iterator} it is
+ * usually built on its input, {@link #run()} then returns it as soon as the
+ * last command returns and the commands before it keep running until it is
+ * consumed or closed.
+ */
+final class CommandPipeline {
+
+	/** Maximum number of objects waiting between two commands */
+	static final int PIPE_CAPACITY = 256;
+
+	private final ArgParser parser;
+	private final List<ParsedCommand> commands;
+	private final Executor executor;
+	private final List<FutureTask<Object>> stages = new ArrayList<>();
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+	/** set when the last command returns a lazy result, see {@link ResultIterator} */
+	private volatile boolean lazyResult;
+
+	CommandPipeline(ArgParser parser, List<ParsedCommand> commands, Executor executor) {
+		this.parser = parser;
+		this.commands = commands;
+		this.executor = executor;
+	}
+
+	/**
+	 * Runs the pipeline and waits for its last command to complete.
+	 *
+	 * @return the value returned by the last command, a {@code Stream} or
+	 *         {@code Iterator} is returned as one that must be consumed or
+	 *         closed for the commands before it to end
+	 */
+	Object run() {
+		Pipe input = null;
+		for(int i = 0; i < commands.size(); i++) {
+			ParsedCommand command = commands.get(i);
+			if(input != null)
+				command = command.withInput(new InputArgument(input));
+			Pipe output = i == commands.size()-1 ? null : new Pipe();
+			stages.add(createStage(i, command, output));
+			input = output;
+		}
+		for(FutureTask<Object> stage : stages)
+			executor.execute(stage);
+
+		try {
+			return stages.get(stages.size()-1).get();
+		} catch (InterruptedException e) {
+			cancelStages(stages.size());
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while waiting for the pipeline");
+		} catch (ExecutionException | CancellationException e) {
+			throw toRethrown(e instanceof ExecutionException ? e.getCause() : e);
+		}
+	}
+	
+	/** Returns the failure of the pipeline, {@code cause} if no command failed */
+	private RuntimeException toRethrown(Throwable cause) {
+		Throwable t = failure.get();
+		if(t == null)
+			t = cause;
+		if(t instanceof RuntimeException)
+			return (RuntimeException) t;
+		if(t instanceof Error)
+			throw (Error) t;
+		return new IllegalStateException("Pipeline failure", t);
+	}
+
+	private FutureTask<Object> createStage(int index, ParsedCommand command, Pipe output) {
+		return new FutureTask<>(() -> {
+			// inputs are closed once the result is sent, the stream returned by the command may still read them
+			List<AutoCloseable> resources = new ArrayList<>(0);
+			try {
+				Object result = parser.execute(command, resources);
+				if(output == null) {
+					if(!(result instanceof Stream) && !(result instanceof Iterator))
+						return result;
+					lazyResult = true;
+					ResultIterator elements = new ResultIterator(result, resources);
+					resources = null; // closed with the result
+					return result instanceof Stream ? elements.stream() : elements;
+				}
+				send(result, output);
+				output.putEnd();
+				return null;
+			} finally {
+				if(resources != null)
+					ArgParser.closeAll(resources);
+			}
+		}) {
+			@Override
+			protected void done() {
+				try {
+					if(isCancelled())
+						return;
+					get();
+					// the commands before this one are not needed anymore, unless they feed the result
+					if(output != null || !lazyResult)
+						cancelStages(index);
+				} catch (ExecutionException e) {
+					failure.compareAndSet(null, e.getCause());
+					cancelStages(stages.size());
+				} catch (InterruptedException e) {
+					// unreachable, the task is done
+				} finally {
+					// wakes up the next command if this one did not end its output
+					if(output != null)
+						output.fail();
+				}
+			}
+		};
+	}
+
+	private void cancelStages(int end) {
+		for(int i = 0; i < end; i++)
+			stages.get(i).cancel(true);
+	}
+
+	private static void send(Object result, Pipe output) throws InterruptedException {
+		Iterator<?> elements;
+		if(result == null)
+			return;
+		else if(result instanceof Stream)
+			elements = ((Stream<?>) result).iterator();
+		else if(result instanceof Iterator)
+			elements = (Iterator<?>) result;
+		else if(result instanceof Iterable)
+			elements = ((Iterable<?>) result).iterator();
+		else
+			elements = List.of(result).iterator();
+		while(elements.hasNext())
+			output.put(elements.next());
+	}
+
+	/**
+	 * Lazy result of the last command. The commands before it keep running,
+	 * and its inputs open, until it is consumed or closed. A failure of one of
+	 * these commands is rethrown when the result is read.
+	 */
+	private class ResultIterator implements Iterator<Object>, AutoCloseable {
+		
+		private final Iterator<?> elements;
+		/** the stream returned by the command, {@code null} if it returned an iterator */
+		private final Stream<?> stream;
+		private final List<AutoCloseable> resources;
+		private final AtomicBoolean closed = new AtomicBoolean();
+		
+		ResultIterator(Object result, List<AutoCloseable> resources) {
+			this.stream = result instanceof Stream ? (Stream<?>) result : null;
+			this.elements = stream != null ? stream.iterator() : (Iterator<?>) result;
+			this.resources = resources;
+		}
+		
+		Stream<Object> stream() {
+			return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+					.onClose(this::close);
+		}
+		
+		@Override
+		public boolean hasNext() {
+			try {
+				if(elements.hasNext())
+					return true;
+			} catch (CancellationException e) {
+				close();
+				throw toRethrown(e);
+			} catch (RuntimeException | Error e) {
+				close();
+				throw e;
+			}
+			close();
+			return false;
+		}
+		
+		@Override
+		public Object next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			return elements.next();
+		}
+		
+		@Override
+		public void close() {
+			if(!closed.compareAndSet(false, true))
+				return;
+			cancelStages(stages.size()-1);
+			try {
+				if(stream != null)
+					stream.close();
+			} finally {
+				ArgParser.closeAll(resources);
+			}
+		}
+		
+	}
+
+	/**
+	 * Bounded queue between two commands, read as an iterator by the second one.
+	 */
+	private static class Pipe implements Iterator<Object> {
+
+		private static final Object END = new Object();
+		/** stands for {@code null} elements, which cannot be queued */
+		private static final Object NULL = new Object();
+		/** put in place of the remaining elements when the writing command fails or is cancelled */
+		private static final Object FAILED = new Object();
+
+		private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(PIPE_CAPACITY);
+		/** the element read by {@link #hasNext()}, {@code null} if none was read */
+		private Object next;
+		private volatile boolean ended;
+
+		void put(Object element) throws InterruptedException {
+			queue.put(element == null ? NULL : element);
+		}
+
+		void putEnd() throws InterruptedException {
+			queue.put(END);
+			ended = true;
+		}
+		
+		/**
+		 * Ends the pipe early, called once its writer is done. The reader then
+		 * fails instead of waiting for elements that will never come.
+		 */
+		void fail() {
+			if(ended)
+				return;
+			queue.clear();
+			queue.offer(FAILED);
+		}
+
+		@Override
+		public boolean hasNext() {
+			if(next == null) {
+				try {
+					next = queue.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new CancellationException("Pipeline interrupted");
+				}
+			}
+			if(next == FAILED)
+				throw new CancellationException("A previous command of the pipeline failed");
+			return next != END;
+		}
+
+		@Override
+		public Object next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			Object element = next;
+			next = null;
+			return element == NULL ? null : element;
+		}
+
+	}
+
+}
@@ -0,0 +1,226 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeSet;
+
+import fr.wonder.commons.utils.StringUtils;
+
+/**
+ * Generates static shell completion scripts for an {@link ArgParser}.
+ *
+ * <p>
+ * The scripts embed the entry point tree, the option names and shorthands of
+ * every entry point and the constants of {@code enum} arguments, completing a
+ * command therefore does not require starting the program. They must be
+ * regenerated when entry points change.
+ *
+ * <p>
+ * Example usage, when packaging a CLI tool:
+ * <blockquote><pre>
+ * String script = CompletionScriptGenerator.generate(parser, Shell.BASH);
+ * Files.writeString(Path.of("mytool.bash"), script);
+ * </pre></blockquote>
+ */
+public class CompletionScriptGenerator {
+
+	public static enum Shell {
+		BASH, ZSH, FISH
+	}
+
+	private CompletionScriptGenerator() {}
+
+	/** A branch of the entry point tree, flattened */
+	private static class PathNode {
+
+		final String path;
+		final Collection<String> children;
+		final EntryPointFunction entry;
+
+		PathNode(String path, Branch branch) {
+			this.path = path;
+			this.children = new TreeSet<>(branch.subBranches.keySet());
+			this.entry = branch.entryPoint;
+		}
+
+	}
+
+	public static String generate(ArgParser parser, Shell shell) {
+		parser.loadAllBranches();
+		List<PathNode> nodes = new ArrayList<>();
+		collectNodes("", parser.getTreeRoot(), nodes);
+		Collection<String> valuedOptions = new TreeSet<>();
+		for(String option : parser.getAllOptionNames()) {
+			if(parser.doesOptionTakeArgument(option))
+				valuedOptions.add(option);
+		}
+		String prog = parser.getProgName();
+		String function = "_" + prog.replaceAll("[^a-zA-Z0-9_]", "_");
+
+		switch(shell) {
+		case BASH:
+			return generateBash(prog, function, nodes, valuedOptions);
+		case ZSH:
+			return "#compdef " + prog + "\n"
+					+ "autoload -U +X bashcompinit && bashcompinit\n"
+					+ generateBash(prog, function, nodes, valuedOptions);
+		case FISH:
+			return generateFish(prog, function, nodes, valuedOptions);
+		default:
+			throw new IllegalArgumentException("Unknown shell " + shell);
+		}
+	}
+
+	private static void collectNodes(String path, Branch branch, List<PathNode> nodes) {
+		nodes.add(new PathNode(path, branch));
+		for(Entry<String, Branch> sub : branch.subBranches.entrySet())
+			collectNodes(path.isEmpty() ? sub.getKey() : path + " " + sub.getKey(), sub.getValue(), nodes);
+	}
+
+	private static Collection<String> getOptionNames(EntryPointFunction entry) {
+		if(!entry.usesOptions())
+			return new TreeSet<>();
+		Collection<String> options = new TreeSet<>(entry.getOptions().getOptionFields().keySet());
+		options.add("--help");
+		return options;
+	}
+
+	/** Returns the constants of the argument at {@code index} if it is an enum */
+	private static String getEnumValues(EntryPointFunction entry, int index) {
+		Class<?> type = entry.getParamType(index);
+		return type.isEnum() ? StringUtils.join(" ", type.getEnumConstants()) : null;
+	}
+
+	private static String generateBash(String prog, String function, List<PathNode> nodes, Collection<String> valuedOptions) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("# bash completion for ").append(prog).append(", generated from its entry points\n\n");
+
+		sb.append(function).append("_candidates() {\n");
+		sb.append("\tcase \"$1\" in\n");
+		for(PathNode node : nodes) {
+			sb.append("\t\t'").append(node.path).append("')\n");
+			if(node.entry == null) {
+				sb.append("\t\t\t[[ $2 == -* ]] || echo '").append(String.join(" ", node.children)).append("' ;;\n");
+				continue;
+			}
+			Collection<String> options = getOptionNames(node.entry);
+			if(options.isEmpty())
+				sb.append("\t\t\t[[ $2 == -* ]] && return\n");
+			else
+				sb.append("\t\t\tif [[ $2 == -* ]]; then echo '").append(String.join(" ", options)).append("'; return; fi\n");
+			List<String> enumCases = new ArrayList<>();
+			for(int i = 0; i < node.entry.paramCount(); i++) {
+				String values = getEnumValues(node.entry, i);
+				if(values != null)
+					enumCases.add("\t\t\t\t" + i + ") echo '" + values + "' ;;\n");
+			}
+			if(!enumCases.isEmpty()) {
+				sb.append("\t\t\tcase \"$3\" in\n");
+				enumCases.forEach(sb::append);
+				sb.append("\t\t\tesac\n");
+			}
+			sb.append("\t\t\t;;\n");
+		}
+		sb.append("\tesac\n");
+		sb.append("}\n\n");
+
+		sb.append(function).append("() {\n");
+		sb.append("\tlocal cur=\"${COMP_WORDS[COMP_CWORD]}\" path='' argc=0 i word\n");
+		sb.append("\tCOMPREPLY=()\n");
+		sb.append("\tfor ((i = 1; i < COMP_CWORD; i++)); do\n");
+		sb.append("\t\tword=\"${COMP_WORDS[i]}\"\n");
+		sb.append("\t\tcase \"$word\" in\n");
+		if(!valuedOptions.isEmpty()) {
+			sb.append("\t\t\t").append(String.join("|", valuedOptions)).append(")\n");
+			sb.append("\t\t\t\t((i++ == COMP_CWORD - 1)) && return ;;\n");
+		}
+		sb.append("\t\t\t-*) ;;\n");
+		sb.append("\t\t\thelp|'?') ((i == 1)) || ((argc++)) ;;\n");
+		sb.append("\t\t\t*)\n");
+		sb.append("\t\t\t\tlocal children=\" $(").append(function).append("_candidates \"$path\" \"$word\") \"\n");
+		sb.append("\t\t\t\tif ((argc == 0)) && [[ $children == *\" $word \"* ]]; then\n");
+		sb.append("\t\t\t\t\tpath=\"${path:+$path }$word\"\n");
+		sb.append("\t\t\t\telse\n");
+		sb.append("\t\t\t\t\t((argc++))\n");
+		sb.append("\t\t\t\tfi ;;\n");
+		sb.append("\t\tesac\n");
+		sb.append("\tdone\n");
+		sb.append("\tCOMPREPLY=( $(compgen -W \"$(").append(function).append("_candidates \"$path\" \"$cur\" \"$argc\")\" -- \"$cur\") )\n");
+		sb.append("}\n\n");
+
+		sb.append("complete -F ").append(function).append(' ').append(prog).append('\n');
+		return sb.toString();
+	}
+
+	private static String generateFish(String prog, String function, List<PathNode> nodes, Collection<String> valuedOptions) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("# fish completion for ").append(prog).append(", generated from its entry points\n\n");
+
+		sb.append("function ").append(function).append("_candidates\n");
+		sb.append("\tswitch $argv[1]\n");
+		for(PathNode node : nodes) {
+			sb.append("\t\tcase '").append(node.path).append("'\n");
+			if(node.entry == null) {
+				sb.append("\t\t\tstring match -q -- '-*' $argv[2]; or printf '%s\\n' ").append(String.join(" ", node.children)).append('\n');
+				continue;
+			}
+			sb.append("\t\t\tif string match -q -- '-*' $argv[2]\n");
+			Collection<String> options = getOptionNames(node.entry);
+			if(!options.isEmpty())
+				sb.append("\t\t\t\tprintf '%s\\n' ").append(String.join(" ", options)).append('\n');
+			sb.append("\t\t\t\treturn\n");
+			sb.append("\t\t\tend\n");
+			List<String> enumCases = new ArrayList<>();
+			for(int i = 0; i < node.entry.paramCount(); i++) {
+				String values = getEnumValues(node.entry, i);
+				if(values != null)
+					enumCases.add("\t\t\t\tcase " + i + "\n\t\t\t\t\tprintf '%s\\n' " + values + "\n");
+			}
+			if(!enumCases.isEmpty()) {
+				sb.append("\t\t\tswitch $argv[3]\n");
+				enumCases.forEach(sb::append);
+				sb.append("\t\t\tend\n");
+			}
+		}
+		sb.append("\tend\n");
+		sb.append("end\n\n");
+
+		sb.append("function ").append(function).append('\n');
+		sb.append("\tset -l words (commandline -opc)\n");
+		sb.append("\tset -l cur (commandline -ct)\n");
+		sb.append("\tset -l path ''\n");
+		sb.append("\tset -l argc 0\n");
+		sb.append("\tset -l skip 0\n");
+		sb.append("\tfor i in (seq 2 (count $words))\n");
+		sb.append("\t\tset -l word $words[$i]\n");
+		sb.append("\t\tif test $skip = 1\n");
+		sb.append("\t\t\tset skip 0\n");
+		sb.append("\t\t\tcontinue\n");
+		sb.append("\t\tend\n");
+		sb.append("\t\tswitch $word\n");
+		if(!valuedOptions.isEmpty()) {
+			sb.append("\t\t\tcase ").append(String.join(" ", valuedOptions)).append('\n');
+			sb.append("\t\t\t\tset skip 1\n");
+		}
+		sb.append("\t\t\tcase '-*'\n");
+		sb.append("\t\t\tcase help '?'\n");
+		sb.append("\t\t\t\ttest $i = 2; or set argc (math $argc + 1)\n");
+		sb.append("\t\t\tcase '*'\n");
+		sb.append("\t\t\t\tif test $argc = 0; and contains -- $word (").append(function).append("_candidates \"$path\" $word)\n");
+		sb.append("\t\t\t\t\tset path (string trim -- \"$path $word\")\n");
+		sb.append("\t\t\t\telse\n");
+		sb.append("\t\t\t\t\tset argc (math $argc + 1)\n");
+		sb.append("\t\t\t\tend\n");
+		sb.append("\t\tend\n");
+		sb.append("\tend\n");
+		sb.append("\ttest $skip = 1; and return\n");
+		sb.append("\t").append(function).append("_candidates \"$path\" \"$cur\" $argc\n");
+		sb.append("end\n\n");
+
+		sb.append("complete -c ").append(prog).append(" -f -a '(").append(function).append(")'\n");
+		return sb.toString();
+	}
+
+}
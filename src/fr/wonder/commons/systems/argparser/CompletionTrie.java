@@ -0,0 +1,59 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable prefix tree over a set of words.
+ *
+ * <p>
+ * Every node stores the sorted words it leads to, so that a completion only
+ * costs a walk over the prefix characters.
+ */
+final class CompletionTrie {
+
+	private final Node root = new Node();
+
+	CompletionTrie(Collection<String> words) {
+		for(String word : words) {
+			Node node = root;
+			node.collected.add(word);
+			for(int i = 0; i < word.length(); i++) {
+				node = node.children.computeIfAbsent(word.charAt(i), c -> new Node());
+				node.collected.add(word);
+			}
+		}
+		root.freeze();
+	}
+
+	/**
+	 * Returns the sorted words starting with {@code prefix}.
+	 */
+	List<String> complete(String prefix) {
+		Node node = root;
+		for(int i = 0; i < prefix.length() && node != null; i++)
+			node = node.children.get(prefix.charAt(i));
+		return node == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(node.words));
+	}
+
+	private static class Node {
+
+		final Map<Character, Node> children = new HashMap<>(2);
+		List<String> collected = new ArrayList<>(1);
+		String[] words;
+
+		void freeze() {
+			words = collected.stream().distinct().sorted().toArray(String[]::new);
+			collected = null;
+			for(Node child : children.values())
+				child.freeze();
+		}
+
+	}
+
+}
@@ -0,0 +1,179 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Framing used between {@link ArgParserDaemon} and {@link ArgParserClient}.
+ *
+ * <p>
+ * Every message is a frame made of a type byte, a payload length and the
+ * payload itself. The client first sends a {@link #COMMAND} frame then
+ * forwards its standard input, the daemon forwards the entry point output
+ * and finishes with an {@link #EXIT} frame.
+ *
+ * <p>
+ * Frames are at most {@link #MAX_FRAME_LENGTH} bytes long, so that a peer
+ * cannot make the other one allocate an arbitrary amount of memory. Strings
+ * are written as their UTF-8 length and bytes.
+ */
+final class DaemonProtocol {
+
+	/** client to daemon, working directory and arguments */
+	static final byte COMMAND = 1;
+	/** client to daemon, standard input bytes */
+	static final byte STDIN = 2;
+	/** client to daemon, end of the standard input */
+	static final byte STDIN_EOF = 3;
+	/** daemon to client, standard output bytes */
+	static final byte STDOUT = 4;
+	/** daemon to client, standard error bytes */
+	static final byte STDERR = 5;
+	/** daemon to client, exit status of the command */
+	static final byte EXIT = 6;
+	
+	/** maximum payload length, larger outputs are split in several frames */
+	static final int MAX_FRAME_LENGTH = 16 << 20;
+
+	private DaemonProtocol() {}
+
+	static class Frame {
+
+		final byte type;
+		final byte[] payload;
+
+		Frame(byte type, byte[] payload) {
+			this.type = type;
+			this.payload = payload;
+		}
+
+	}
+
+	static Frame readFrame(DataInputStream in) throws IOException {
+		byte type = in.readByte();
+		int length = in.readInt();
+		if(length < 0 || length > MAX_FRAME_LENGTH)
+			throw new IOException("Invalid frame length " + length);
+		byte[] payload = new byte[length];
+		in.readFully(payload);
+		return new Frame(type, payload);
+	}
+
+	static void writeFrame(DataOutputStream out, byte type, byte[] payload, int off, int len) throws IOException {
+		if(len > MAX_FRAME_LENGTH)
+			throw new IOException("Frame too long: " + len + " bytes");
+		synchronized (out) {
+			out.writeByte(type);
+			out.writeInt(len);
+			out.write(payload, off, len);
+			out.flush();
+		}
+	}
+
+	static void writeFrame(DataOutputStream out, byte type, byte[] payload) throws IOException {
+		writeFrame(out, type, payload, 0, payload.length);
+	}
+
+	static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	/**
+	 * Reads a string written by {@link #writeString(DataOutputStream, String)}
+	 * from the payload of a frame, whose remaining length is known.
+	 */
+	static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[readCount(in, 1)];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Reads the number of elements of {@code elementSize} bytes that follow in
+	 * the payload of a frame, checked against its remaining length.
+	 */
+	static int readCount(DataInputStream in, int elementSize) throws IOException {
+		int count = in.readInt();
+		if(count < 0 || count > in.available() / elementSize)
+			throw new IOException("Invalid length " + count);
+		return count;
+	}
+
+	/**
+	 * Returns a stream reading directly from the channel. Streams returned by
+	 * {@link java.nio.channels.Channels#newInputStream(java.nio.channels.ReadableByteChannel)}
+	 * cannot be used because they lock the channel, preventing concurrent writes.
+	 */
+	static InputStream inputStream(SocketChannel channel) {
+		return new InputStream() {
+			@Override
+			public int read() throws IOException {
+				byte[] b = new byte[1];
+				return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				if(len == 0)
+					return 0;
+				return channel.read(ByteBuffer.wrap(b, off, len));
+			}
+		};
+	}
+
+	/** @see #inputStream(SocketChannel) */
+	static OutputStream outputStream(SocketChannel channel) {
+		return new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+				while(buffer.hasRemaining())
+					channel.write(buffer);
+			}
+		};
+	}
+
+	/**
+	 * Output stream wrapping every write in frames of the given type.
+	 */
+	static class FrameOutputStream extends OutputStream {
+
+		private final DataOutputStream out;
+		private final byte type;
+
+		FrameOutputStream(DataOutputStream out, byte type) {
+			this.out = out;
+			this.type = type;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			for(int end = off + len; off < end; off += MAX_FRAME_LENGTH)
+				writeFrame(out, type, b, off, Math.min(end - off, MAX_FRAME_LENGTH));
+		}
+
+	}
+
+	static IOException unexpectedFrame(Frame frame) {
+		return new IOException("Unexpected frame of type " + frame.type);
+	}
+
+}
@@ -0,0 +1,119 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Standard streams of an {@link ArgParserDaemon} JVM. They are replaced once
+ * by streams that write to, and read from, the client whose command runs on
+ * the current thread, and to the original streams on other threads.
+ *
+ * <p>
+ * Client streams are inherited by the threads a command starts, but not by
+ * threads of pools created before it, whose output goes to the original
+ * streams.
+ */
+final class DaemonStreams {
+
+	private static final InheritableThreadLocal<InputStream> IN = new InheritableThreadLocal<>();
+	private static final InheritableThreadLocal<PrintStream> OUT = new InheritableThreadLocal<>();
+	private static final InheritableThreadLocal<PrintStream> ERR = new InheritableThreadLocal<>();
+
+	private static boolean installed;
+
+	private DaemonStreams() {}
+
+	/** Replaces the standard streams of the JVM, if that was not done already */
+	static synchronized void install() {
+		if(installed)
+			return;
+		InputStream in = System.in;
+		PrintStream out = System.out;
+		PrintStream err = System.err;
+		System.setIn(new DispatchingInputStream(in));
+		System.setOut(new PrintStream(new DispatchingOutputStream(OUT, out), true));
+		System.setErr(new PrintStream(new DispatchingOutputStream(ERR, err), true));
+		installed = true;
+	}
+
+	/**
+	 * Makes the standard streams of the current thread, and of the threads it
+	 * starts, those of a client. Called with {@code null}s once the command of
+	 * the client completed.
+	 */
+	static void setClientStreams(InputStream in, PrintStream out, PrintStream err) {
+		IN.set(in);
+		OUT.set(out);
+		ERR.set(err);
+	}
+
+	private static class DispatchingInputStream extends InputStream {
+
+		private final InputStream fallback;
+
+		DispatchingInputStream(InputStream fallback) {
+			this.fallback = fallback;
+		}
+
+		private InputStream current() {
+			InputStream in = IN.get();
+			return in == null ? fallback : in;
+		}
+
+		@Override
+		public int read() throws IOException {
+			return current().read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return current().read(b, off, len);
+		}
+
+		@Override
+		public int available() throws IOException {
+			return current().available();
+		}
+
+		@Override
+		public void close() throws IOException {
+			current().close();
+		}
+
+	}
+
+	private static class DispatchingOutputStream extends OutputStream {
+
+		private final ThreadLocal<PrintStream> client;
+		private final PrintStream fallback;
+
+		DispatchingOutputStream(ThreadLocal<PrintStream> client, PrintStream fallback) {
+			this.client = client;
+			this.fallback = fallback;
+		}
+
+		private PrintStream current() {
+			PrintStream out = client.get();
+			return out == null ? fallback : out;
+		}
+
+		@Override
+		public void write(int b) {
+			current().write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			current().write(b, off, len);
+		}
+
+		@Override
+		public void flush() {
+			current().flush();
+		}
+
+	}
+
+}
@@ -1,31 +1,64 @@
 package fr.wonder.commons.systems.argparser;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
-import java.util.Map;
+import java.util.List;
 import java.util.Objects;
 
-import fr.wonder.commons.exceptions.ErrorWrapper;
 import fr.wonder.commons.exceptions.ErrorWrapper.WrappedException;
 import fr.wonder.commons.systems.argparser.annotations.Argument;
 import fr.wonder.commons.systems.argparser.annotations.Arguments;
-import fr.wonder.commons.utils.StringUtils;
+import fr.wonder.commons.systems.argparser.annotations.Cacheable;
+import fr.wonder.commons.systems.argparser.annotations.EntryPoint;
+import fr.wonder.commons.systems.argparser.annotations.FanOut;
+import fr.wonder.commons.systems.argparser.annotations.Limits;
 
 class EntryPointFunction {
 	
 	private final Method method;
+	private final EntryPoint annotation;
 	private final ProcessOptions options;
 	private final Object[] defaultArgumentValues;
 	private final Argument[] argumentsAnnotations;
 	private final int optionalArgsCount;
+	// cached to avoid reflection when printing help, without the options parameter
+	private final Class<?>[] paramTypes;
+	private final String[] paramNames;
+	/** whether the last parameter is an input which accepts lines of text, see {@link InputArgument} */
+	private final boolean inputReadsLines;
+	/** cached results, {@code null} if the method is not {@link Cacheable} */
+	private final ResultCache resultCache;
+	/** runner of the elements of the last parameter, {@code null} if the method is not {@link FanOut} */
+	private final FanOutRunner fanOutRunner;
+	/** time limit and slots of the executions, {@code null} if the method is not {@link Limits limited} */
+	private final ExecutionLimits limits;
 	
 	private EntryPointFunction(Method method, ProcessOptions options, Argument[] argumentsAnnotations,
 			Object[] defaultValues, int optionalArgsCount) {
 		this.method = Objects.requireNonNull(method);
-		this.options = Objects.requireNonNull(options);
-		this.argumentsAnnotations = Objects.requireNonNull(argumentsAnnotations);
+		this.annotation = Objects.requireNonNull(method.getAnnotation(EntryPoint.class));
+		this.options = options;
+		this.argumentsAnnotations = argumentsAnnotations;
 		this.defaultArgumentValues = Objects.requireNonNull(defaultValues);
 		this.optionalArgsCount = Objects.requireNonNull(optionalArgsCount);
+		
+		int optionsOffset = options == null ? 0 : 1;
+		Parameter[] params = method.getParameters();
+		this.paramTypes = new Class<?>[params.length - optionsOffset];
+		this.paramNames = new String[params.length - optionsOffset];
+		this.inputReadsLines = params.length > 0 && InputArgument.canReadLines(params[params.length-1].getParameterizedType());
+		Cacheable cacheable = method.getAnnotation(Cacheable.class);
+		this.resultCache = cacheable == null ? null : new ResultCache(cacheable, method.getReturnType());
+		FanOut fanOut = method.getAnnotation(FanOut.class);
+		this.fanOutRunner = fanOut == null ? null : new FanOutRunner(fanOut);
+		Limits limits = method.getAnnotation(Limits.class);
+		this.limits = limits == null ? null : new ExecutionLimits(limits);
+		for(int i = 0; i < paramTypes.length; i++) {
+			paramTypes[i] = params[i+optionsOffset].getType();
+			paramNames[i] = argumentsAnnotations == null ? params[i+optionsOffset].getName() : argumentsAnnotations[i].name();
+		}
 	}
 	
 	public static EntryPointFunction createEntryPointFunction(Method method, ProcessOptions options) {
@@ -34,10 +67,16 @@ class EntryPointFunction {
 		Object[] defaultValues = new Object[method.getParameterCount() - optionsOffset];
 		Argument[] argumentsAnnotations = getArgumentAnnotations(method);
 		
+		// a trailing input argument is optional, it defaults to the standard input
+		Class<?>[] types = method.getParameterTypes();
+		boolean hasInput = defaultValues.length > 0 && InputArgument.isInputType(types[types.length-1]);
+		if(hasInput)
+			defaultValues[defaultValues.length-1] = InputArgument.STDIN;
+		
 		if(argumentsAnnotations == null)
-			return new EntryPointFunction(method, options, null, defaultValues, 0);
+			return new EntryPointFunction(method, options, null, defaultValues, hasInput ? 1 : 0);
 		
-		int optIdx = argumentsAnnotations.length;
+		int optIdx = argumentsAnnotations.length - (hasInput ? 1 : 0);
 		while(optIdx-- > 0 && !argumentsAnnotations[optIdx].defaultValue().isEmpty()) {
 			Parameter p = method.getParameters()[optIdx+optionsOffset];
 			try {
@@ -71,8 +110,13 @@ class EntryPointFunction {
 		return options != null;
 	}
 	
+	/** Returns true if the last parameter is a stream or an iterator, which can be fed by a pipeline */
+	public boolean isPipeable() {
+		return paramTypes.length > 0 && InputArgument.isPipeableType(paramTypes[paramTypes.length-1]);
+	}
+	
 	public int paramCount() {
-		return method.getParameterCount() - optionsOffset();
+		return paramTypes.length;
 	}
 	
 	public int optionalParamCount() {
@@ -80,13 +124,31 @@ class EntryPointFunction {
 	}
 	
 	public String getParamName(int i) {
-		return argumentsAnnotations == null ?
-				method.getParameters()[i+optionsOffset()].getName() :
-				argumentsAnnotations[i].name();
+		return paramNames[i];
 	}
 	
 	public Class<?> getParamType(int i) {
-		return method.getParameterTypes()[i+optionsOffset()];
+		return paramTypes[i];
+	}
+	
+	/**
+	 * Returns the type of the {@code i}-th argument of a command, which may be
+	 * past the last parameter if it is a fan-out parameter.
+	 */
+	public Class<?> getArgumentType(int i) {
+		return paramTypes[Math.min(i, paramTypes.length-1)];
+	}
+	
+	public String getArgumentName(int i) {
+		return paramNames[Math.min(i, paramNames.length-1)];
+	}
+	
+	public boolean isFanOut() {
+		return fanOutRunner != null;
+	}
+	
+	public FanOutRunner getFanOutRunner() {
+		return fanOutRunner;
 	}
 
 	public String getParamDesc(int i) {
@@ -94,34 +156,87 @@ class EntryPointFunction {
 			argumentsAnnotations[i].desc();
 	}
 
-	private int optionsOffset() {
-		return options == null ? 0 : 1;
+	/**
+	 * Reports the options of a command that this entry point does not declare,
+	 * before its arguments are counted: the value of a mistyped option is read
+	 * as an argument and would otherwise be reported as one too many. The
+	 * other options are still converted, so that all their errors are reported
+	 * at once, but the arguments are not.
+	 */
+	public void checkOptionNames(CommandOptions rawOptions, File workingDir, ParseErrors errors) throws WrappedException {
+		if(!usesOptions()) {
+			if(!rawOptions.isEmpty())
+				errors.addAndThrow(ParseErrorCode.UNEXPECTED_OPTIONS, ParseErrors.NO_INDEX, rawOptions.getNames());
+			return;
+		}
+		rawOptions.resolve(options.getOptionTable());
+		boolean unknownOptions = false;
+		for(int i = 0; i < rawOptions.size(); i++) {
+			if(rawOptions.getSlot(i) == -1) {
+				errors.add(ParseErrorCode.UNKNOWN_OPTION, rawOptions.getWord(i), rawOptions.getName(i), options);
+				unknownOptions = true;
+			}
+		}
+		if(unknownOptions) {
+			OptionsHelper.createOptionsTemplate(rawOptions, options, null, workingDir, errors);
+			errors.assertNoErrors();
+		}
 	}
-
-	public Object[] finishArgsArray(Object[] rawArguments, Map<String, String> rawOptions, ErrorWrapper errors) throws WrappedException {
+	
+	/**
+	 * Replaces missing optional arguments by their default values and converts
+	 * options.
+	 * 
+	 * @return the options template, {@code null} if this entry point does not use
+	 *         options
+	 */
+	public OptionsTemplate finishArguments(Object[] rawArguments, CommandOptions rawOptions, LayeredOptions layers,
+			File workingDir, ParseErrors errors) throws WrappedException {
 		
 		for(int i = paramCount() - optionalParamCount(); i < paramCount(); i++) {
 			if(rawArguments[i] == null)
 				rawArguments[i] = defaultArgumentValues[i];
 		}
-		if(!usesOptions()) {
-			if(!rawOptions.isEmpty())
-				errors.addAndThrow("Unexpected options: " + StringUtils.join(", ", rawOptions.keySet()));
-			return rawArguments;
-		}
-		Object[] arguments = new Object[rawArguments.length+1];
-		for(int i = 0; i < rawArguments.length; i++)
-			arguments[i+1] = rawArguments[i];
-		arguments[0] = OptionsHelper.createOptionsInstance(rawOptions, options, errors);
+		if(!usesOptions())
+			return null;
+		OptionsTemplate template = OptionsHelper.createOptionsTemplate(rawOptions, options, layers, workingDir, errors);
 		errors.assertNoErrors();
 		
-		return arguments;
+		return template;
+	}
+	
+	/**
+	 * Returns the array passed to the entry point method, with a new options
+	 * instance if it uses options.
+	 */
+	public Object[] getInvocationArguments(Object[] arguments, OptionsTemplate options, List<AutoCloseable> resources) throws IOException {
+		int offset = usesOptions() ? 1 : 0;
+		Object[] invocationArguments = new Object[arguments.length+offset];
+		System.arraycopy(arguments, 0, invocationArguments, offset, arguments.length);
+		if(usesOptions())
+			invocationArguments[0] = options.newInstance();
+		int last = arguments.length-1;
+		if(last >= 0 && arguments[last] instanceof InputArgument)
+			invocationArguments[last+offset] = ((InputArgument) arguments[last]).open(paramTypes[last], inputReadsLines, resources);
+		return invocationArguments;
 	}
 	
 	public Method getMethod() {
 		return method;
 	}
 	
+	public EntryPoint getAnnotation() {
+		return annotation;
+	}
+	
+	public ResultCache getResultCache() {
+		return resultCache;
+	}
+	
+	public ExecutionLimits getLimits() {
+		return limits;
+	}
+	
 	public ProcessOptions getOptions() {
 		return options;
 	}
@@ -0,0 +1,129 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import fr.wonder.commons.systems.argparser.annotations.EntryPoint;
+
+/**
+ * Index of the classes declaring the entry points of a program, used to load
+ * them only when a command needs them.
+ *
+ * <p>
+ * Index files are resources named {@code META-INF/argparser/<progName>.index},
+ * every jar (or module) of the program can provide its own. Each line mounts
+ * a class on a branch path:
+ * <blockquote><pre>
+ * # comment
+ * build = com.example.build.BuildCommands
+ * remote add = com.example.remote.RemoteAddCommand
+ * </pre></blockquote>
+ * Every entry point of a mounted class must be on its branch path, entry
+ * points keep their full path in their {@link EntryPoint} annotation. Index
+ * lines can be generated with {@link #generate(Class...)}, typically as a
+ * build step using {@link #main(String[])}.
+ *
+ * @see ArgParser#ArgParser(String, ClassLoader)
+ */
+public final class EntryPointIndex {
+
+	public static final String INDEX_DIRECTORY = "META-INF/argparser/";
+
+	private EntryPointIndex() {}
+
+	/**
+	 * Prints the index lines of the classes whose names are given as arguments.
+	 */
+	public static void main(String[] args) throws ClassNotFoundException, InvalidDeclarationError {
+		Class<?>[] classes = new Class<?>[args.length];
+		for(int i = 0; i < args.length; i++)
+			classes[i] = Class.forName(args[i]);
+		System.out.print(generate(classes));
+	}
+
+	/**
+	 * Returns the index lines of the given classes, each class is mounted on the
+	 * longest path shared by all of its entry points.
+	 *
+	 * @throws InvalidDeclarationError if a class declares no entry point or if
+	 *                                 its entry points do not share a path
+	 */
+	public static String generate(Class<?>... classes) throws InvalidDeclarationError {
+		StringBuilder sb = new StringBuilder();
+		for(Class<?> clazz : classes)
+			sb.append(getMountPath(clazz)).append(" = ").append(clazz.getName()).append('\n');
+		return sb.toString();
+	}
+
+	private static String getMountPath(Class<?> clazz) throws InvalidDeclarationError {
+		String[] common = null;
+		int commonLength = 0;
+		for(Method m : clazz.getDeclaredMethods()) {
+			EntryPoint annotation = m.getAnnotation(EntryPoint.class);
+			if(annotation == null)
+				continue;
+			if(ArgParserHelper.isRootBranch(annotation.path()))
+				throw new InvalidDeclarationError("Class " + clazz + " declares a root entry point, it cannot be mounted");
+			String[] parts = annotation.path().split(" ");
+			if(common == null) {
+				common = parts;
+				commonLength = parts.length;
+			} else {
+				int i = 0;
+				while(i < commonLength && i < parts.length && common[i].equals(parts[i]))
+					i++;
+				commonLength = i;
+			}
+		}
+		if(common == null)
+			throw new InvalidDeclarationError("Class " + clazz + " contains no entry points");
+		if(commonLength == 0)
+			throw new InvalidDeclarationError("Entry points of class " + clazz + " do not share a path");
+		return String.join(" ", Arrays.copyOf(common, commonLength));
+	}
+
+	/**
+	 * Reads every index file of {@code progName} visible to {@code loader}.
+	 *
+	 * @return the mounted class names by branch path, in reading order
+	 */
+	static Map<String, String> read(ClassLoader loader, String progName) throws InvalidDeclarationError {
+		Map<String, String> mounts = new LinkedHashMap<>();
+		String resource = INDEX_DIRECTORY + progName + ".index";
+		try {
+			Enumeration<URL> urls = loader.getResources(resource);
+			while(urls.hasMoreElements()) {
+				URL url = urls.nextElement();
+				try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+					int lineNumber = 0;
+					for(String line = reader.readLine(); line != null; line = reader.readLine()) {
+						lineNumber++;
+						line = line.strip();
+						if(line.isEmpty() || line.startsWith("#"))
+							continue;
+						int separator = line.indexOf('=');
+						String path = separator == -1 ? "" : line.substring(0, separator).strip().replaceAll("\\s+", " ");
+						String className = separator == -1 ? "" : line.substring(separator+1).strip();
+						if(path.isEmpty() || className.isEmpty())
+							throw new InvalidDeclarationError("Invalid index line " + lineNumber + " of " + url + ": " + line);
+						String previous = mounts.put(path, className);
+						if(previous != null && !previous.equals(className))
+							throw new InvalidDeclarationError("Branch '" + path + "' is mounted twice, by " + previous + " and " + className);
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new InvalidDeclarationError("Cannot read index " + resource, e);
+		}
+		return mounts;
+	}
+
+}
@@ -0,0 +1,57 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import fr.wonder.commons.systems.argparser.annotations.Limits;
+
+/**
+ * Slots of a {@link Limits} entry point, shared by all its executions.
+ * Waiting executions get slots in arrival order.
+ */
+final class ExecutionLimits {
+
+	private final long timeoutMillis;
+	/** {@code null} if the number of concurrent executions is not limited */
+	private final Semaphore slots;
+	private final long queueTimeoutMillis;
+
+	ExecutionLimits(Limits annotation) {
+		this.timeoutMillis = annotation.timeoutMillis();
+		this.slots = annotation.maxConcurrent() == 0 ? null : new Semaphore(annotation.maxConcurrent(), true);
+		this.queueTimeoutMillis = annotation.queueTimeoutMillis();
+	}
+
+	/** Returns the maximum duration of an execution, 0 for no limit */
+	long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	/**
+	 * Takes a slot for an execution of {@code command}, it must be given back
+	 * with {@link #release()}.
+	 * 
+	 * @throws RejectedExecutionException if no slot was freed in time
+	 * @throws CancellationException      if the thread was interrupted while
+	 *                                    waiting, its interrupt flag is kept
+	 */
+	void acquire(ParsedCommand command) {
+		if(slots == null)
+			return;
+		try {
+			if(!slots.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS))
+				throw new RejectedExecutionException("Too many concurrent executions of '" + command.getEntryPath() + "'");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while waiting to run '" + command.getEntryPath() + "'");
+		}
+	}
+
+	void release() {
+		if(slots != null)
+			slots.release();
+	}
+
+}
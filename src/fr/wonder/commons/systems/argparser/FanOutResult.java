@@ -0,0 +1,71 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.util.Objects;
+
+import fr.wonder.commons.systems.argparser.annotations.FanOut;
+
+/**
+ * Outcome of a {@link FanOut} command, the value returned or the exception
+ * thrown by the entry point for each element, in the order of the arguments.
+ */
+public final class FanOutResult {
+
+	private final Object[] elements;
+	private final Object[] values;
+	private final Throwable[] failures;
+
+	FanOutResult(Object[] elements, Object[] values, Throwable[] failures) {
+		this.elements = elements;
+		this.values = values;
+		this.failures = failures;
+	}
+
+	/** Returns the number of elements */
+	public int size() {
+		return elements.length;
+	}
+
+	/** Returns the converted argument of the {@code i}-th element */
+	public Object getElement(int i) {
+		return elements[i];
+	}
+
+	/** Returns the value returned for the {@code i}-th element, {@code null} if it failed */
+	public Object getValue(int i) {
+		return values[i];
+	}
+
+	/** Returns the exception thrown for the {@code i}-th element, {@code null} if it succeeded */
+	public Throwable getFailure(int i) {
+		return failures[i];
+	}
+
+	public int getFailureCount() {
+		int count = 0;
+		for(Throwable failure : failures)
+			if(failure != null)
+				count++;
+		return count;
+	}
+
+	public boolean isSuccess() {
+		return getFailureCount() == 0;
+	}
+
+	/** Returns the exit status of the whole command, {@code 0} if every element succeeded and {@code 1} otherwise */
+	public int getExitStatus() {
+		return isSuccess() ? 0 : 1;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(elements.length).append(" elements, ").append(getFailureCount()).append(" failed");
+		for(int i = 0; i < elements.length; i++) {
+			if(failures[i] != null)
+				sb.append("\n  ").append(elements[i]).append(": ").append(Objects.toString(failures[i].getMessage(), failures[i].toString()));
+		}
+		return sb.toString();
+	}
+
+}
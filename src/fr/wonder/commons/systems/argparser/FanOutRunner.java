@@ -0,0 +1,146 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+import fr.wonder.commons.systems.argparser.annotations.FanOut;
+import fr.wonder.commons.systems.argparser.annotations.FanOut.Policy;
+
+/**
+ * Runs a {@link FanOut} entry point once per element, on a fork/join pool
+ * shared by the concurrent executions of that entry point. The pool is shut
+ * down when no execution uses it anymore, so that its threads do not outlive
+ * the commands.
+ */
+final class FanOutRunner {
+
+	private final Policy policy;
+	private final int parallelism;
+	/** guarded by {@code this} */
+	private ForkJoinPool pool;
+	/** number of executions using {@link #pool}, guarded by {@code this} */
+	private int activeRuns;
+
+	FanOutRunner(FanOut annotation) {
+		this.policy = annotation.policy();
+		this.parallelism = annotation.parallelism() == 0 ? Runtime.getRuntime().availableProcessors() : annotation.parallelism();
+	}
+
+	private synchronized ForkJoinPool acquirePool() {
+		if(pool == null)
+			pool = new ForkJoinPool(parallelism);
+		activeRuns++;
+		return pool;
+	}
+
+	private synchronized void releasePool() {
+		if(--activeRuns == 0) {
+			pool.shutdown(); // elements still running after a cancellation finish first
+			pool = null;
+		}
+	}
+
+	/**
+	 * The thread running an element, interrupted when the execution is
+	 * cancelled. Fork/join tasks ignore interruptions on cancellation.
+	 */
+	private static class Element {
+
+		private Thread runner;
+		private boolean cancelled;
+
+		/** @return false if the element was cancelled before it started */
+		synchronized boolean start() {
+			if(cancelled)
+				return false;
+			runner = Thread.currentThread();
+			return true;
+		}
+
+		synchronized void finish() {
+			runner = null;
+			if(cancelled)
+				Thread.interrupted(); // the interruption was meant for this element, not for the next task of the thread
+		}
+
+		synchronized void cancel() {
+			cancelled = true;
+			if(runner != null)
+				runner.interrupt();
+		}
+
+	}
+
+	/**
+	 * Calls {@code task} for every element index.
+	 *
+	 * <p>
+	 * If the calling thread is interrupted the elements that were not started
+	 * are skipped, the running ones are interrupted and a
+	 * {@code CancellationException} is thrown without waiting for them.
+	 *
+	 * @throws RuntimeException the first exception thrown by {@code task} if
+	 *                          the policy is {@link Policy#FAIL_FAST fail-fast}
+	 */
+	FanOutResult run(Object[] elements, IntFunction<Object> task) {
+		Object[] values = new Object[elements.length];
+		Throwable[] failures = new Throwable[elements.length];
+		AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+		Element[] running = new Element[elements.length];
+		List<Callable<Void>> tasks = new ArrayList<>(elements.length);
+		for(int i = 0; i < elements.length; i++) {
+			int index = i;
+			Element element = running[i] = new Element();
+			tasks.add(() -> {
+				if(policy == Policy.FAIL_FAST && firstFailure.get() != null)
+					return null; // skipped
+				if(!element.start())
+					return null;
+				try {
+					values[index] = task.apply(index);
+				} catch (RuntimeException | Error e) {
+					failures[index] = e;
+					firstFailure.compareAndSet(null, e);
+				} finally {
+					element.finish();
+				}
+				return null;
+			});
+		}
+
+		ForkJoinPool pool = acquirePool();
+		try {
+			List<ForkJoinTask<Void>> futures = new ArrayList<>(tasks.size());
+			for(Callable<Void> t : tasks)
+				futures.add(pool.submit(t));
+			for(ForkJoinTask<Void> f : futures)
+				f.get();
+		} catch (InterruptedException e) {
+			for(Element element : running)
+				element.cancel();
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while running the fan-out elements");
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause()); // unreachable, failures are caught by the tasks
+		} finally {
+			releasePool();
+		}
+
+		Throwable failure = firstFailure.get();
+		if(policy == Policy.FAIL_FAST && failure != null) {
+			if(failure instanceof Error)
+				throw (Error) failure;
+			throw (RuntimeException) failure;
+		}
+		return new FanOutResult(elements, values, failures);
+	}
+
+}
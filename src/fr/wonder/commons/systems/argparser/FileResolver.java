@@ -0,0 +1,80 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Canonicalizes the {@code File} arguments of a single command.
+ *
+ * <p>
+ * {@link File#getCanonicalFile()} resolves every component of a path, which
+ * costs several system calls per file. Files sharing a parent directory only
+ * get that directory canonicalized once, the files themselves are only checked
+ * not to be symbolic links. Large sets of files are resolved in parallel.
+ *
+ * <p>
+ * The cache lives as long as the resolver, which is created for each command
+ * so that changes made to the file system between commands are seen.
+ */
+final class FileResolver {
+
+	/** Number of files from which they are resolved in parallel */
+	static final int PARALLEL_THRESHOLD = 64;
+
+	private final File workingDir;
+	private final Map<File, File> canonicalDirectories = new ConcurrentHashMap<>();
+
+	/**
+	 * @param workingDir the directory relative paths are resolved against,
+	 *                   {@code null} for the current directory of the JVM
+	 */
+	FileResolver(File workingDir) {
+		this.workingDir = workingDir;
+	}
+
+	/**
+	 * Returns the canonical form of the file at {@code path}, as would
+	 * {@link File#getCanonicalFile()}.
+	 */
+	File resolve(String path) throws IOException {
+		File file = new File(path);
+		if(workingDir != null && !file.isAbsolute())
+			file = new File(workingDir, path);
+		file = file.getAbsoluteFile();
+		String name = file.getName();
+		File parent = file.getParentFile();
+		if(parent == null || name.equals(".") || name.equals("..") || Files.isSymbolicLink(file.toPath()))
+			return file.getCanonicalFile();
+		File canonicalParent = canonicalDirectories.get(parent);
+		if(canonicalParent == null) {
+			canonicalParent = parent.getCanonicalFile();
+			canonicalDirectories.put(parent, canonicalParent);
+		}
+		return new File(canonicalParent, name);
+	}
+
+	/**
+	 * Resolves every path of {@code paths}, in parallel if there are many.
+	 * Paths that cannot be resolved are left {@code null} in the returned array,
+	 * the exception that occurred is stored in {@code failures} at their index.
+	 */
+	File[] resolveAll(String[] paths, Exception[] failures) {
+		File[] resolved = new File[paths.length];
+		IntStream indices = IntStream.range(0, paths.length);
+		if(paths.length >= PARALLEL_THRESHOLD)
+			indices = indices.parallel();
+		indices.forEach(i -> {
+			try {
+				resolved[i] = resolve(paths[i]);
+			} catch (IOException | RuntimeException e) {
+				failures[i] = e;
+			}
+		});
+		return resolved;
+	}
+
+}
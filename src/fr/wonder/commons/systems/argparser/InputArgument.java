@@ -0,0 +1,119 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Input of an entry point parameter of type {@code Stream<T>},
+ * {@code Iterator<T>} or {@code ReadableByteChannel}.
+ *
+ * <p>
+ * Such a parameter must be the last one of its entry point and is optional: it
+ * is bound to the file given as its argument, or to the standard input if the
+ * argument is missing or is {@code -}. Inputs are only opened when the entry
+ * point is run and are read lazily, streams and iterators yield the lines of
+ * the input decoded as UTF-8, they must therefore accept {@code String}
+ * elements. Opened files are closed after the entry point returns, the
+ * standard input is left open.
+ *
+ * <p>
+ * In a pipeline (see {@link ArgParser#runPipeline(List)}) streams and
+ * iterators are bound to the objects produced by the previous command instead,
+ * they can then have any element type.
+ */
+final class InputArgument {
+
+	/** Size of the buffer of line readers, larger than the default to reduce system calls on big inputs */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	static final InputArgument STDIN = new InputArgument((File) null);
+
+	/** the file to read, {@code null} for the standard input or a pipe */
+	private final File file;
+	/** the objects produced by the previous command of a pipeline, {@code null} otherwise */
+	private final Iterator<?> pipe;
+
+	InputArgument(File file) {
+		this.file = file;
+		this.pipe = null;
+	}
+
+	InputArgument(Iterator<?> pipe) {
+		this.file = null;
+		this.pipe = pipe;
+	}
+
+	static boolean isInputType(Class<?> type) {
+		return type == Stream.class || type == Iterator.class || type == ReadableByteChannel.class;
+	}
+
+	static boolean isPipeableType(Class<?> type) {
+		return type == Stream.class || type == Iterator.class;
+	}
+
+	/**
+	 * Returns true if an input parameter of type {@code type} can be given the
+	 * lines of a file.
+	 */
+	static boolean canReadLines(Type type) {
+		if(!(type instanceof ParameterizedType))
+			return true; // raw types or channels
+		Type element = ((ParameterizedType) type).getActualTypeArguments()[0];
+		if(element instanceof WildcardType) {
+			WildcardType wildcard = (WildcardType) element;
+			element = wildcard.getLowerBounds().length != 0 ? wildcard.getLowerBounds()[0] : wildcard.getUpperBounds()[0];
+		}
+		return element instanceof Class && ((Class<?>) element).isAssignableFrom(String.class);
+	}
+
+	/**
+	 * Opens this input as a {@code type} instance, resources that must be closed
+	 * once the entry point returns are added to {@code resources}.
+	 */
+	Object open(Class<?> type, boolean readsLines, List<AutoCloseable> resources) throws IOException {
+		if(pipe != null) {
+			if(type == Iterator.class)
+				return pipe;
+			return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pipe, Spliterator.ORDERED), false);
+		}
+		if(!readsLines)
+			throw new IllegalStateException("Input of type " + type.getSimpleName() + " can only be given by a pipeline");
+		if(type == ReadableByteChannel.class) {
+			if(file == null)
+				return Channels.newChannel(System.in);
+			FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			resources.add(channel);
+			return channel;
+		}
+		InputStream in = file == null ? System.in : new FileInputStream(file);
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+		if(file != null)
+			resources.add(reader);
+		Stream<String> lines = reader.lines();
+		return type == Stream.class ? lines : lines.iterator();
+	}
+
+	@Override
+	public String toString() {
+		return pipe != null ? "|" : file == null ? "-" : file.getPath();
+	}
+
+}
@@ -0,0 +1,90 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Option values given by {@link OptionSource}s, converted once per option
+ * class and shared by every command using that class.
+ *
+ * <p>
+ * Sources are ordered by increasing precedence, for each option the value of
+ * the last source setting it is used. Command line options are applied after
+ * the values of the sources and therefore override them. A boolean option given
+ * on the command line is set to the opposite of its declared default, whatever
+ * the value given by the sources.
+ */
+final class LayeredOptions {
+
+	private final OptionSource[] sources;
+	private final Map<ProcessOptions, Resolved> resolved = new ConcurrentHashMap<>();
+
+	LayeredOptions(OptionSource[] sources) {
+		this.sources = sources.clone();
+	}
+
+	/**
+	 * Returns a template holding the values of the sources for {@code options},
+	 * with room for {@code extraCapacity} more values. Values of the sources that
+	 * cannot be converted are reported in {@code errors}.
+	 */
+	OptionsTemplate createTemplate(ProcessOptions options, int extraCapacity, ParseErrors errors) {
+		Resolved r = resolved.computeIfAbsent(options, this::resolve);
+		for(String error : r.errors)
+			errors.add(ParseErrorCode.INVALID_SOURCE_VALUE, ParseErrors.NO_INDEX, error);
+		return new OptionsTemplate(r.template, extraCapacity);
+	}
+
+	private Resolved resolve(ProcessOptions options) {
+		// shorthands map to the same fields
+		Set<OptionField> fields = new LinkedHashSet<>(options.getOptionFields().values());
+		OptionsTemplate template = new OptionsTemplate(options, fields.size());
+		List<String> errors = new ArrayList<>(0);
+
+		for(OptionField field : fields) {
+			String name = field.getOption().name();
+			for(int i = sources.length-1; i >= 0; i--) {
+				String value = sources[i].getValue(name);
+				if(value == null)
+					continue;
+				try {
+					template.add(field, convert(field, name, value));
+				} catch (ArgumentError e) {
+					errors.add(e.getMessage() + " (from " + sources[i] + ")");
+				}
+				break;
+			}
+		}
+
+		return new Resolved(template, errors.toArray(String[]::new));
+	}
+
+	private static Object convert(OptionField field, String name, String value) throws ArgumentError {
+		if(field.getType() == boolean.class) {
+			if(value.equalsIgnoreCase("true"))
+				return true;
+			if(value.equalsIgnoreCase("false"))
+				return false;
+			throw new ArgumentError("Expected true or false for " + name + ", got '" + value + "'");
+		}
+		return OptionsHelper.parseOptionValue(value, field.getType(), name);
+	}
+
+	private static class Resolved {
+
+		final OptionsTemplate template;
+		final String[] errors;
+
+		Resolved(OptionsTemplate template, String[] errors) {
+			this.template = template;
+			this.errors = errors;
+		}
+
+	}
+
+}
@@ -0,0 +1,164 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.wonder.commons.systems.argparser.annotations.EntryPoint;
+import fr.wonder.commons.systems.argparser.annotations.InnerOptions;
+import fr.wonder.commons.systems.argparser.annotations.Option;
+import fr.wonder.commons.systems.argparser.annotations.OptionClass;
+
+/**
+ * Generates the reflection configuration needed to compile a program using
+ * {@link ArgParser} ahead of time with GraalVM {@code native-image}.
+ *
+ * <p>
+ * {@code ArgParser} lists the methods of entry point classes and the fields of
+ * option classes, invokes entry points, instantiates option classes and sets
+ * their fields, and reads the constants of enum arguments. All of these must
+ * be declared to {@code native-image}, which is what
+ * {@link #generate(Class...)} does for the given entry point classes, in the
+ * {@code reflect-config.json} format. The output is typically written to
+ * {@code META-INF/native-image/<group>/<artifact>/reflect-config.json} as a
+ * build step using {@link #main(String[])}, GraalVM is not needed to generate
+ * it.
+ *
+ * <p>
+ * Programs using an {@link EntryPointIndex} must list all of their mounted
+ * classes and also include the index files as resources, see
+ * {@link #generateResourceConfig()}. Programs should start with
+ * {@link ArgParser#runHere(Class, String[])} rather than looking up their
+ * calling class.
+ */
+public final class NativeImageConfig {
+
+	private NativeImageConfig() {}
+
+	/**
+	 * Prints the reflection configuration of the classes whose names are given
+	 * as arguments.
+	 */
+	public static void main(String[] args) throws ClassNotFoundException, InvalidDeclarationError {
+		Class<?>[] classes = new Class<?>[args.length];
+		for(int i = 0; i < args.length; i++)
+			classes[i] = Class.forName(args[i]);
+		System.out.println(generate(classes));
+	}
+
+	/**
+	 * Returns the {@code reflect-config.json} content of the given entry point
+	 * classes, their option classes and the enums they use.
+	 *
+	 * @throws InvalidDeclarationError if a class declares no entry point
+	 */
+	public static String generate(Class<?>... classes) throws InvalidDeclarationError {
+		Map<Class<?>, ClassConfig> configs = new LinkedHashMap<>();
+		for(Class<?> clazz : classes)
+			addEntryPointClass(configs, clazz);
+		StringBuilder sb = new StringBuilder("[");
+		boolean first = true;
+		for(ClassConfig config : configs.values()) {
+			sb.append(first ? "\n" : ",\n");
+			config.append(sb);
+			first = false;
+		}
+		return sb.append("\n]").toString();
+	}
+
+	/**
+	 * Returns the {@code resource-config.json} content including the entry point
+	 * index files, see {@link EntryPointIndex}.
+	 */
+	public static String generateResourceConfig() {
+		return "{\n  \"resources\" : {\n    \"includes\" : [\n"
+				+ "      { \"pattern\" : \"\\\\Q" + EntryPointIndex.INDEX_DIRECTORY + "\\\\E.*\\\\.index\" }\n"
+				+ "    ]\n  }\n}";
+	}
+
+	private static void addEntryPointClass(Map<Class<?>, ClassConfig> configs, Class<?> clazz) throws InvalidDeclarationError {
+		ClassConfig config = getConfig(configs, clazz);
+		config.queryAllDeclaredMethods = true;
+		Method[] methods = clazz.getDeclaredMethods();
+		Arrays.sort(methods, Comparator.comparing(Method::toString)); // for reproducible outputs
+		for(Method m : methods) {
+			if(m.getAnnotation(EntryPoint.class) == null)
+				continue;
+			config.methods.add(getMethodConfig(m.getName(), m.getParameterTypes()));
+			Class<?>[] params = m.getParameterTypes();
+			for(int i = 0; i < params.length; i++) {
+				if(i == 0 && ArgParserHelper.doesMethodUseOptions(m))
+					addOptionClass(configs, params[i]);
+				else
+					addArgumentType(configs, params[i]);
+			}
+		}
+		if(config.methods.isEmpty())
+			throw new InvalidDeclarationError("Class " + clazz + " contains no entry points");
+	}
+
+	private static void addOptionClass(Map<Class<?>, ClassConfig> configs, Class<?> clazz) {
+		if(configs.containsKey(clazz))
+			return;
+		ClassConfig config = getConfig(configs, clazz);
+		config.allDeclaredFields = true;
+		config.methods.add(getMethodConfig("<init>", new Class<?>[0]));
+		for(Field f : clazz.getDeclaredFields()) {
+			// option classes fields are instantiated even when not declared as inner options
+			if(f.getAnnotation(InnerOptions.class) != null || f.getType().isAnnotationPresent(OptionClass.class))
+				addOptionClass(configs, f.getType());
+			else if(f.getAnnotation(Option.class) != null)
+				addArgumentType(configs, f.getType());
+		}
+	}
+
+	private static void addArgumentType(Map<Class<?>, ClassConfig> configs, Class<?> type) {
+		if(type.isEnum() && !configs.containsKey(type))
+			getConfig(configs, type).methods.add(getMethodConfig("values", new Class<?>[0]));
+	}
+
+	private static ClassConfig getConfig(Map<Class<?>, ClassConfig> configs, Class<?> clazz) {
+		return configs.computeIfAbsent(clazz, ClassConfig::new);
+	}
+
+	private static String getMethodConfig(String name, Class<?>[] parameterTypes) {
+		StringBuilder sb = new StringBuilder("{ \"name\" : \"").append(name).append("\", \"parameterTypes\" : [");
+		for(int i = 0; i < parameterTypes.length; i++)
+			sb.append(i == 0 ? " \"" : ", \"").append(parameterTypes[i].getTypeName()).append('"');
+		return sb.append(parameterTypes.length == 0 ? "] }" : " ] }").toString();
+	}
+
+	private static class ClassConfig {
+
+		final Class<?> clazz;
+		final List<String> methods = new ArrayList<>();
+		boolean queryAllDeclaredMethods;
+		boolean allDeclaredFields;
+
+		ClassConfig(Class<?> clazz) {
+			this.clazz = clazz;
+		}
+
+		void append(StringBuilder sb) {
+			sb.append("  {\n    \"name\" : \"").append(clazz.getName()).append('"');
+			if(queryAllDeclaredMethods)
+				sb.append(",\n    \"queryAllDeclaredMethods\" : true");
+			if(allDeclaredFields)
+				sb.append(",\n    \"allDeclaredFields\" : true");
+			if(!methods.isEmpty()) {
+				sb.append(",\n    \"methods\" : [");
+				for(int i = 0; i < methods.size(); i++)
+					sb.append(i == 0 ? "\n      " : ",\n      ").append(methods.get(i));
+				sb.append("\n    ]");
+			}
+			sb.append("\n  }");
+		}
+
+	}
+
+}
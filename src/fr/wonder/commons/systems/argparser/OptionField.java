@@ -0,0 +1,71 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.util.Objects;
+
+import fr.wonder.commons.systems.argparser.annotations.Option;
+
+/**
+ * Setter plan of a single {@link Option} field.
+ *
+ * <p>
+ * The field is accessed through a {@link VarHandle} resolved once when the
+ * option class is registered, the instance holding the field is found by
+ * following the {@link fr.wonder.commons.systems.argparser.annotations.InnerOptions
+ * InnerOptions} holders from the root option instance.
+ */
+final class OptionField {
+
+	private final Field field;
+	private final Option option;
+	private final VarHandle handle;
+	private final VarHandle[] holderPath;
+
+	OptionField(Field field, VarHandle handle, VarHandle[] holderPath) {
+		this.field = Objects.requireNonNull(field);
+		this.option = Objects.requireNonNull(field.getAnnotation(Option.class));
+		this.handle = Objects.requireNonNull(handle);
+		this.holderPath = Objects.requireNonNull(holderPath);
+	}
+
+	/**
+	 * Returns the instance declaring this option field, {@code root} must be an
+	 * instance of the option class this option was collected from.
+	 */
+	private Object getHolder(Object root) {
+		Object holder = root;
+		for(VarHandle h : holderPath) {
+			holder = h.get(holder);
+			if(holder == null)
+				throw new IllegalStateException("Could not find an instance of " + field.getDeclaringClass() + " for option '" + option.name() + "' in a " + root.getClass().getSimpleName());
+		}
+		return holder;
+	}
+
+	public void set(Object root, Object value) {
+		handle.set(getHolder(root), value);
+	}
+
+	public Object get(Object root) {
+		return handle.get(getHolder(root));
+	}
+
+	public Class<?> getType() {
+		return field.getType();
+	}
+
+	public Option getOption() {
+		return option;
+	}
+
+	public Field getField() {
+		return field;
+	}
+
+	@Override
+	public String toString() {
+		return field.toString();
+	}
+
+}
@@ -0,0 +1,90 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+
+import fr.wonder.commons.systems.process.Manifest;
+import fr.wonder.commons.systems.process.ManifestUtils;
+
+/**
+ * A source of option values other than the command line, such as environment
+ * variables or a configuration file, see
+ * {@link ArgParser#setOptionSources(OptionSource...)}.
+ *
+ * <p>
+ * Values are given as they would be on the command line, boolean options
+ * accept {@code true} and {@code false}.
+ */
+public interface OptionSource {
+
+	/**
+	 * Returns the value of the option named {@code optionName} (for example
+	 * {@code --out-dir}), or {@code null} if this source does not set it.
+	 */
+	String getValue(String optionName);
+
+	/**
+	 * Returns the source reading environment variables. Option names are
+	 * converted to screaming snake case and prefixed, with a prefix
+	 * {@code MYTOOL_} option {@code --out-dir} is read from
+	 * {@code MYTOOL_OUT_DIR}.
+	 */
+	static OptionSource environment(String prefix) {
+		Objects.requireNonNull(prefix);
+		Map<String, String> env = System.getenv();
+		return new OptionSource() {
+			@Override
+			public String getValue(String optionName) {
+				return env.get(prefix + ManifestUtils.CONVENTION_SCREAMING_SNAKE_CASE.apply(stripDashes(optionName)));
+			}
+
+			@Override
+			public String toString() {
+				return "environment " + prefix + "*";
+			}
+		};
+	}
+
+	/**
+	 * Returns the source reading the entries of {@code manifest}, keyed by option
+	 * names without their leading dashes: option {@code --out-dir} is read from
+	 * the {@code out-dir} entry.
+	 */
+	static OptionSource manifest(String name, Manifest manifest) {
+		Objects.requireNonNull(name);
+		Objects.requireNonNull(manifest);
+		return new OptionSource() {
+			@Override
+			public String getValue(String optionName) {
+				return manifest.get(stripDashes(optionName));
+			}
+
+			@Override
+			public String toString() {
+				return name;
+			}
+		};
+	}
+
+	/**
+	 * Parses the manifest file {@code file}, see
+	 * {@link ManifestUtils#parseManifest(File)}, and returns the source reading
+	 * its entries as would {@link #manifest(String, Manifest)}. The file is only
+	 * read once, by this method.
+	 *
+	 * @throws IOException if the file cannot be read
+	 */
+	static OptionSource manifestFile(File file) throws IOException {
+		return manifest(file.getPath(), ManifestUtils.parseManifest(file));
+	}
+
+	private static String stripDashes(String optionName) {
+		int start = 0;
+		while(start < optionName.length() && optionName.charAt(start) == '-')
+			start++;
+		return optionName.substring(start);
+	}
+
+}
@@ -0,0 +1,237 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Dispatch table of the options that can be given to a branch, read with a
+ * single lookup per option.
+ *
+ * <p>
+ * Option names are placed with a perfect hash, built by hash and displace:
+ * names are first grouped in buckets by their hash, then for each bucket,
+ * largest first, a displacement is searched so that its names land on free
+ * slots. A lookup hashes the name once, reads the displacement of its bucket
+ * and compares the name to the single name stored in its slot. Each slot holds
+ * the arity of its option and, for the table of an option class, the field it
+ * sets.
+ *
+ * <p>
+ * Names are hashed from their characters with a 64 bits hash rather than with
+ * {@link String#hashCode()}, whose collisions would share a slot whatever the
+ * displacement. There are between two and four slots per option. In the
+ * unlikely case where no displacement places a bucket, the table falls back to
+ * a {@code HashMap} from names to slots.
+ *
+ * <p>
+ * The table of a branch without entry point holds the options of every entry
+ * point below it, without fields as they depend on the entry point reached.
+ */
+final class OptionTable {
+
+	static final OptionTable EMPTY = new OptionTable(new LinkedHashMap<>(), new LinkedHashMap<>());
+
+	/** Number of displacements tried for a bucket before falling back to a map */
+	private static final int MAX_DISPLACEMENT = 1 << 12;
+
+	private final String[] names;
+	private final OptionField[] fields;
+	private final boolean[] takesArgument;
+	private final int mask;
+	/** displacement of each bucket, {@code null} if the table uses {@link #fallback} */
+	private final int[] displacements;
+	private final Map<String, Integer> fallback;
+
+	/**
+	 * @param arities whether each option takes an argument
+	 * @param fields  the fields set by the options, empty for branch tables
+	 */
+	private OptionTable(Map<String, Boolean> arities, Map<String, OptionField> fields) {
+		String[] keys = arities.keySet().toArray(String[]::new);
+		long[] hashes = new long[keys.length];
+		for(int i = 0; i < keys.length; i++)
+			hashes[i] = hash(keys[i]);
+		int size = Integer.highestOneBit(Math.max(1, keys.length)) << 2;
+		int[] displacements = new int[Math.max(1, size >> 2)];
+		int[] slots = placeKeys(hashes, size-1, displacements);
+
+		if(slots == null) {
+			// no perfect hash found, one slot per option
+			size = keys.length;
+			slots = new int[keys.length];
+			this.displacements = null;
+			this.fallback = new HashMap<>();
+			for(int i = 0; i < keys.length; i++) {
+				slots[i] = i;
+				fallback.put(keys[i], i);
+			}
+		} else {
+			this.displacements = displacements;
+			this.fallback = null;
+		}
+		this.mask = size-1;
+		this.names = new String[size];
+		this.fields = new OptionField[size];
+		this.takesArgument = new boolean[size];
+		for(int i = 0; i < keys.length; i++) {
+			names[slots[i]] = keys[i];
+			takesArgument[slots[i]] = arities.get(keys[i]);
+			this.fields[slots[i]] = fields.get(keys[i]);
+		}
+	}
+
+	/**
+	 * Searches the displacement of each bucket, stored in
+	 * {@code outDisplacements}.
+	 * 
+	 * @return the slot of each key, {@code null} if a bucket cannot be placed
+	 */
+	private static int[] placeKeys(long[] hashes, int mask, int[] outDisplacements) {
+		int bucketMask = outDisplacements.length-1;
+		List<List<Integer>> buckets = new ArrayList<>(outDisplacements.length);
+		for(int b = 0; b < outDisplacements.length; b++)
+			buckets.add(new ArrayList<>(2));
+		for(int i = 0; i < hashes.length; i++)
+			buckets.get(bucket(hashes[i], bucketMask)).add(i);
+		Integer[] order = new Integer[buckets.size()];
+		for(int b = 0; b < order.length; b++)
+			order[b] = b;
+		// largest buckets first, while most slots are free
+		Arrays.sort(order, Comparator.comparingInt(b -> -buckets.get(b).size()));
+
+		int[] slots = new int[hashes.length];
+		boolean[] used = new boolean[mask+1];
+		for(int b : order) {
+			List<Integer> bucket = buckets.get(b);
+			if(bucket.isEmpty())
+				break;
+			int displacement = findDisplacement(bucket, hashes, mask, used);
+			if(displacement == -1)
+				return null;
+			outDisplacements[b] = displacement;
+			for(int key : bucket) {
+				slots[key] = slot(hashes[key], displacement, mask);
+				used[slots[key]] = true;
+			}
+		}
+		return slots;
+	}
+
+	/** Returns the first displacement placing every key of {@code bucket} on a distinct free slot, {@code -1} if none is found */
+	private static int findDisplacement(List<Integer> bucket, long[] hashes, int mask, boolean[] used) {
+		search:
+		for(int displacement = 0; displacement < MAX_DISPLACEMENT; displacement++) {
+			for(int i = 0; i < bucket.size(); i++) {
+				int slot = slot(hashes[bucket.get(i)], displacement, mask);
+				if(used[slot])
+					continue search;
+				for(int j = 0; j < i; j++) {
+					if(slot(hashes[bucket.get(j)], displacement, mask) == slot)
+						continue search;
+				}
+			}
+			return displacement;
+		}
+		return -1;
+	}
+
+	/** Returns the table of the options of an option class, shorthands included */
+	static OptionTable forOptions(Map<String, OptionField> optionFields) {
+		Map<String, Boolean> arities = new LinkedHashMap<>();
+		for(Entry<String, OptionField> option : optionFields.entrySet())
+			arities.put(option.getKey(), OptionsHelper.doesOptionTakeArgument(option.getValue().getType()));
+		return new OptionTable(arities, optionFields);
+	}
+
+	/**
+	 * Returns the table of the options of the entry points below
+	 * {@code branch}, mounted classes that were not loaded yet are ignored.
+	 */
+	static OptionTable forBranch(Branch branch) {
+		Map<String, Boolean> arities = new LinkedHashMap<>();
+		collectArities(branch, arities);
+		return new OptionTable(arities, new LinkedHashMap<>());
+	}
+
+	private static void collectArities(Branch branch, Map<String, Boolean> arities) {
+		if(branch.entryPoint != null && branch.entryPoint.usesOptions()) {
+			OptionTable table = branch.entryPoint.getOptions().getOptionTable();
+			for(int i = 0; i < table.names.length; i++) {
+				if(table.names[i] != null)
+					arities.put(table.names[i], table.takesArgument[i]);
+			}
+		}
+		if(branch.mountedClass == null) {
+			for(Branch sub : branch.subBranches.values())
+				collectArities(sub, arities);
+		}
+	}
+
+	/** FNV-1a over the characters of {@code name} */
+	private static long hash(String name) {
+		long h = 0xCBF29CE484222325L;
+		for(int i = 0; i < name.length(); i++)
+			h = (h ^ name.charAt(i)) * 0x100000001B3L;
+		return h;
+	}
+
+	private static int bucket(long hash, int bucketMask) {
+		return (int) mix(hash) & bucketMask;
+	}
+
+	private static int slot(long hash, int displacement, int mask) {
+		return (int) mix(hash ^ (displacement+1) * 0x9E3779B97F4A7C15L) & mask;
+	}
+
+	/** Spreads every bit of {@code h} to the low bits, FNV-1a barely mixes the last characters */
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/** Returns the slot of the option named {@code name}, {@code -1} if it is not in this table */
+	int indexOf(String name) {
+		if(fallback != null) {
+			Integer slot = fallback.get(name);
+			return slot == null ? -1 : slot;
+		}
+		long hash = hash(name);
+		int slot = slot(hash, displacements[bucket(hash, displacements.length-1)], mask);
+		return name.equals(names[slot]) ? slot : -1;
+	}
+
+	/** Returns the names and shorthands of the options of this table */
+	List<String> getNames() {
+		List<String> list = new ArrayList<>();
+		for(String name : names) {
+			if(name != null)
+				list.add(name);
+		}
+		return list;
+	}
+
+	boolean takesArgument(int slot) {
+		return takesArgument[slot];
+	}
+
+	/** Returns the field set by the option at {@code slot}, {@code null} in branch tables */
+	OptionField getField(int slot) {
+		return fields[slot];
+	}
+
+	/** Returns the number of slots, which are numbered from {@code 0} */
+	int capacity() {
+		return names.length;
+	}
+
+}
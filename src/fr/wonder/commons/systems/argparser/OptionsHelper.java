@@ -2,11 +2,9 @@ package fr.wonder.commons.systems.argparser;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 
-import fr.wonder.commons.exceptions.ErrorWrapper;
 import fr.wonder.commons.exceptions.UnreachableException;
 import fr.wonder.commons.systems.reflection.PrimitiveUtils;
 import fr.wonder.commons.systems.reflection.ReflectUtils;
@@ -15,6 +13,15 @@ import fr.wonder.commons.utils.StringUtils;
 class OptionsHelper {
 
 	public static Object parseOptionValue(String arg, Class<?> argType, String argName) throws ArgumentError {
+		return parseOptionValue(arg, argType, argName, null);
+	}
+	
+	/**
+	 * Converts a raw argument to {@code argType}, relative {@code File} paths are
+	 * resolved against {@code workingDir} or against the current directory of the
+	 * JVM if it is {@code null}.
+	 */
+	public static Object parseOptionValue(String arg, Class<?> argType, String argName, File workingDir) throws ArgumentError {
 		if(PrimitiveUtils.isPrimitiveType(argType)) {
 			if(PrimitiveUtils.isFloatingPoint(argType)) {
 				try {
@@ -33,10 +40,21 @@ class OptionsHelper {
 			return arg;
 		} else if(argType == File.class) {
 			try {
-				return new File(arg).getCanonicalFile();
+				File file = new File(arg);
+				if(workingDir != null && !file.isAbsolute())
+					file = new File(workingDir, arg);
+				return file.getCanonicalFile();
 			} catch (IOException | NullPointerException e) {
 				throw new ArgumentError("Cannot resolve path " + arg + ": " + e.getMessage());
 			}
+		} else if(argType == Path.class) {
+			// not canonicalized, the file system is only accessed when the path is used
+			try {
+				Path path = Path.of(arg);
+				return workingDir == null ? path.toAbsolutePath() : workingDir.toPath().resolve(path);
+			} catch (InvalidPathException e) {
+				throw new ArgumentError("Invalid path " + arg + ": " + e.getMessage());
+			}
 		} else if(argType.isEnum()) {
 			try {
 				return ReflectUtils.getEnumConstant(argType, arg.toUpperCase());
@@ -48,56 +66,51 @@ class OptionsHelper {
 		}
 	}
 
-	public static Object createOptionsInstance(Map<String, String> rawOptions, ProcessOptions options, ErrorWrapper errors) {
-		Object instance = options.newInstance();
-		Map<Class<?>, Object> complexFields;
-		try {
-			complexFields = options.getAllOptionFields(instance);
-		} catch (IllegalAccessException e) {
-			throw new IllegalStateException("Could not initialize an option instance", e);
-		}
+	/**
+	 * Converts the given options, the returned template can be used to create
+	 * any number of option class instances.
+	 */
+	public static OptionsTemplate createOptionsTemplate(CommandOptions rawOptions, ProcessOptions options,
+			LayeredOptions layers, File workingDir, ParseErrors errors) {
+		OptionsTemplate template = layers == null ?
+				new OptionsTemplate(options, rawOptions.size()) :
+				layers.createTemplate(options, rawOptions.size(), errors);
 		
-		for(Entry<String, String> optPair : rawOptions.entrySet()) {
-			Field optField = options.getOptionFields().get(optPair.getKey());
-			if(optField == null) {
-				errors.add("Unknown option: " + optPair.getKey());
-				continue;
-			}
-			Object fieldInstance = complexFields.get(optField.getDeclaringClass());
-			if(fieldInstance == null)
-				throw new IllegalStateException("Could not find an instance of " + optField.getType() + " for option class '" + optField.getName() + "' in a " + instance.getClass().getSimpleName());
-			setOption(fieldInstance, optField, optPair.getKey(), optPair.getValue(), errors);
+		OptionTable table = options.getOptionTable();
+		for(int i = 0; i < rawOptions.size(); i++) {
+			int slot = rawOptions.getSlot(i);
+			if(slot == -1)
+				continue; // reported by EntryPointFunction#checkOptionNames
+			setOption(template, table.getField(slot), rawOptions.getName(i), rawOptions.getValue(i), workingDir, errors, rawOptions.getWord(i));
 		}
 		
-		return instance;
+		return template;
 	}
 
-	private static void setOption(Object optionObj, Field optionField, String opt, String value, ErrorWrapper errors) {
+	private static void setOption(OptionsTemplate template, OptionField optionField, String opt, String value,
+			File workingDir, ParseErrors errors, int word) {
+		Class<?> optionType = optionField.getType();
+		
+		if(optionType == boolean.class) {
+			// special case: flags invert the declared default, that's to allow fields that default to true
+			template.addFlag(optionField);
+			return;
+		}
+		
+		if(optionType == File.class && !errors.checksFiles()) {
+			template.add(optionField, new File(value)); // validating on another host, not resolved
+			return;
+		}
+		
+		Object argVal;
 		try {
-			Class<?> optionType = optionField.getType();
-			
-			if(optionType == boolean.class) {
-				// special case: toggle the boolean, that's to allow fields that default to true
-				optionField.setBoolean(optionObj, !optionField.getBoolean(optionObj));
-				return;
-			}
-			
-			Object argVal;
-			try {
-				argVal = parseOptionValue(value, optionType, opt);
-			} catch (ArgumentError e) {
-				errors.add(e.getMessage());
-				return;
-			}
-			
-			if(PrimitiveUtils.isTruePrimitive(optionType)) {
-				PrimitiveUtils.setPrimitive(optionObj, optionField, (Number) argVal);
-			} else {
-				optionField.set(optionObj, argVal);
-			}
-		} catch (IllegalAccessException e) {
-			errors.add("Cannot Cannot set an option field value: " + e.getMessage());
+			argVal = parseOptionValue(value, optionType, opt, workingDir);
+		} catch (ArgumentError e) {
+			errors.add(ParseErrorCode.INVALID_VALUE, word, e);
+			return;
 		}
+		
+		template.add(optionField, argVal);
 	}
 
 	public static boolean doesOptionTakeArgument(Class<?> type) {
@@ -0,0 +1,82 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Converted option values of a command, applied to a fresh option class
+ * instance each time one is needed so that entry points cannot observe
+ * modifications made by previous runs.
+ */
+final class OptionsTemplate {
+
+	/**
+	 * value of boolean options given on the command line, which are set to the
+	 * opposite of their declared default
+	 */
+	private static final Object FLAG = new Object();
+
+	private final ProcessOptions options;
+	private final OptionField[] fields;
+	private final Object[] values;
+	private int size;
+	private boolean hasFlags;
+
+	OptionsTemplate(ProcessOptions options, int capacity) {
+		this.options = Objects.requireNonNull(options);
+		this.fields = new OptionField[capacity];
+		this.values = new Object[capacity];
+	}
+
+	/** Creates a template holding the values of {@code base}, with room for {@code extraCapacity} more */
+	OptionsTemplate(OptionsTemplate base, int extraCapacity) {
+		this.options = base.options;
+		this.fields = Arrays.copyOf(base.fields, base.size+extraCapacity);
+		this.values = Arrays.copyOf(base.values, base.size+extraCapacity);
+		this.size = base.size;
+		this.hasFlags = base.hasFlags;
+	}
+
+	void addFlag(OptionField field) {
+		add(field, FLAG);
+		hasFlags = true;
+	}
+
+	void add(OptionField field, Object value) {
+		fields[size] = field;
+		values[size] = value;
+		size++;
+	}
+
+	/**
+	 * Returns the option names and values of this template sorted by name, equal
+	 * for templates applying the same options.
+	 */
+	List<Object> getNormalizedValues() {
+		List<Object> normalized = new ArrayList<>(size);
+		Integer[] order = new Integer[size];
+		for(int i = 0; i < size; i++)
+			order[i] = i;
+		Arrays.sort(order, Comparator.comparing(i -> fields[i].getOption().name()));
+		for(int i : order)
+			normalized.add(List.of(fields[i].getOption().name(), values[i]));
+		return normalized;
+	}
+
+	Object newInstance() {
+		Object instance = options.newInstance();
+		// declared defaults of flags are read before any value is set, a source may have set the same field
+		boolean[] flagValues = hasFlags ? new boolean[size] : null;
+		for(int i = 0; hasFlags && i < size; i++) {
+			if(values[i] == FLAG)
+				flagValues[i] = !(boolean) fields[i].get(instance);
+		}
+		for(int i = 0; i < size; i++)
+			fields[i].set(instance, values[i] == FLAG ? flagValues[i] : values[i]);
+		return instance;
+	}
+
+}
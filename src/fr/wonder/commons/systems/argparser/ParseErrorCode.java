@@ -0,0 +1,42 @@
+package fr.wonder.commons.systems.argparser;
+
+/**
+ * Kinds of problems found in a command line, reported by
+ * {@link CommandDiagnostic#getProblems()}.
+ */
+public enum ParseErrorCode {
+
+	/** An {@code @argfile} does not exist */
+	ARGUMENT_FILE_MISSING,
+	/** An {@code @argfile} cannot be read */
+	ARGUMENT_FILE_UNREADABLE,
+	/** A word of the command is not a branch of the entry point path */
+	UNKNOWN_PATH_WORD,
+	/** The command ends before reaching an entry point */
+	UNFINISHED_PATH,
+	/** An option taking a value is given none */
+	OPTION_REQUIRES_VALUE,
+	/** A mandatory argument of the entry point is missing */
+	MISSING_ARGUMENT,
+	/** Reported after missing arguments, the usage of the entry point */
+	ENTRY_USAGE,
+	/** More arguments are given than the entry point takes */
+	TOO_MANY_ARGUMENTS,
+	/** An argument or option value cannot be converted to its type */
+	INVALID_VALUE,
+	/** The file given as input of the entry point does not exist */
+	INPUT_FILE_MISSING,
+	/** A {@code File} argument cannot be resolved */
+	UNRESOLVABLE_PATH,
+	/** An option is not declared by the entry point */
+	UNKNOWN_OPTION,
+	/** Options are given to an entry point that takes none */
+	UNEXPECTED_OPTIONS,
+	/** A value read from an {@link OptionSource} cannot be converted */
+	INVALID_SOURCE_VALUE,
+	/** Help is asked for in a pipeline */
+	HELP_IN_PIPELINE,
+	/** A command of a pipeline does not read its input from the pipeline */
+	NOT_PIPEABLE,
+
+}
@@ -0,0 +1,215 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import fr.wonder.commons.exceptions.ErrorWrapper;
+import fr.wonder.commons.exceptions.ErrorWrapper.WrappedException;
+import fr.wonder.commons.utils.StringUtils;
+
+/**
+ * Errors found while reading a command, recorded as codes with the index of
+ * the word they concern and formatted only when they are thrown.
+ *
+ * <p>
+ * Commands are expected to be valid most of the time: until an error is
+ * recorded this collector only holds the word indices of the arguments, and no
+ * message, exception or {@link ErrorWrapper} is created.
+ *
+ * <p>
+ * Errors are reported sorted by index, errors that do not concern a single
+ * word ({@link #NO_INDEX}) come last, in the order they were
+ * recorded.
+ */
+final class ParseErrors {
+
+	/** Index of errors that do not concern a single word */
+	static final int NO_INDEX = -1;
+
+	private final ArgParser parser;
+	private final String header;
+	/** false when validating commands meant for another host, see {@link #checksFiles()} */
+	private final boolean checkFiles;
+
+	private ParseErrorCode[] codes;
+	private int[] indices;
+	private Object[][] details;
+	private boolean[] unchecked;
+	private int size;
+	private int errorCount;
+
+	/** word index of each argument of the entry point, see {@link #recordArgumentWord(int)} */
+	private int[] argumentWords;
+	private int argumentCount;
+
+	ParseErrors(ArgParser parser, String header) {
+		this(parser, header, true);
+	}
+
+	ParseErrors(ArgParser parser, String header, boolean checkFiles) {
+		this.parser = parser;
+		this.header = header;
+		this.checkFiles = checkFiles;
+	}
+
+	/**
+	 * Returns false when validating commands that are run on another host,
+	 * files named by the command may not exist on this one: the existence of
+	 * input and argument files is reported with {@link #addUnchecked} instead
+	 * of being an error, and {@code File} values are not resolved.
+	 */
+	boolean checksFiles() {
+		return checkFiles;
+	}
+
+	/**
+	 * Records an error, the details recorded with each code are the ones read
+	 * by {@link #format(ParseErrorCode, int, Object[])}.
+	 * 
+	 * @param index the index of the word of the command the error concerns
+	 *              (after {@code @argfile} expansion), or of the command in a
+	 *              pipeline for pipeline errors, {@link #NO_INDEX} if the error
+	 *              does not concern a single one
+	 */
+	void add(ParseErrorCode code, int index, Object... errorDetails) {
+		record(code, index, errorDetails, false);
+		errorCount++;
+	}
+
+	/**
+	 * Records a problem that depends on the files of the host running the
+	 * command and is not an error when validating, see {@link #checksFiles()}.
+	 */
+	void addUnchecked(ParseErrorCode code, int index, Object... errorDetails) {
+		record(code, index, errorDetails, true);
+	}
+
+	private void record(ParseErrorCode code, int index, Object[] errorDetails, boolean isUnchecked) {
+		if(codes == null) {
+			codes = new ParseErrorCode[4];
+			indices = new int[4];
+			details = new Object[4][];
+			unchecked = new boolean[4];
+		} else if(size == codes.length) {
+			codes = Arrays.copyOf(codes, size*2);
+			indices = Arrays.copyOf(indices, size*2);
+			details = Arrays.copyOf(details, size*2);
+			unchecked = Arrays.copyOf(unchecked, size*2);
+		}
+		codes[size] = code;
+		indices[size] = index;
+		details[size] = errorDetails;
+		unchecked[size] = isUnchecked;
+		size++;
+	}
+
+	/**
+	 * Records that the next argument of the entry point is the
+	 * {@code wordIndex}-th word of the command, so that errors found when the
+	 * arguments are converted are reported at their word.
+	 */
+	void recordArgumentWord(int wordIndex) {
+		if(argumentWords == null)
+			argumentWords = new int[8];
+		else if(argumentCount == argumentWords.length)
+			argumentWords = Arrays.copyOf(argumentWords, argumentCount*2);
+		argumentWords[argumentCount++] = wordIndex;
+	}
+
+	/** Returns the index of the word of the {@code argument}-th argument, {@link #NO_INDEX} if it is unknown */
+	int getArgumentWord(int argument) {
+		return argument < argumentCount ? argumentWords[argument] : NO_INDEX;
+	}
+
+	boolean hasUncheckedProblems() {
+		return size != errorCount;
+	}
+
+	void addAndThrow(ParseErrorCode code, int index, Object... errorDetails) throws WrappedException {
+		add(code, index, errorDetails);
+		assertNoErrors();
+	}
+
+	/**
+	 * Formats the recorded errors and throws them if there are any.
+	 */
+	void assertNoErrors() throws WrappedException {
+		if(errorCount == 0)
+			return;
+		ErrorWrapper errors = new ErrorWrapper(header, false);
+		for(int i : sortedProblems()) {
+			if(!unchecked[i])
+				errors.add(format(codes[i], indices[i], details[i]));
+		}
+		errors.assertNoErrors();
+	}
+
+	/** Returns the errors and unchecked problems recorded, formatted */
+	List<CommandDiagnostic.Problem> getProblems() {
+		List<CommandDiagnostic.Problem> problems = new ArrayList<>(size);
+		for(int i : sortedProblems())
+			problems.add(new CommandDiagnostic.Problem(codes[i], indices[i], format(codes[i], indices[i], details[i]), !unchecked[i]));
+		return problems;
+	}
+
+	private Integer[] sortedProblems() {
+		Integer[] order = new Integer[size];
+		for(int i = 0; i < size; i++)
+			order[i] = i;
+		// stable, errors with the same index keep their order, NO_INDEX is last as an unsigned int
+		Arrays.sort(order, (i, j) -> Integer.compareUnsigned(indices[i], indices[j]));
+		return order;
+	}
+
+	@SuppressWarnings("unchecked")
+	private String format(ParseErrorCode code, int index, Object[] d) {
+		switch(code) {
+		case ARGUMENT_FILE_MISSING:
+			return "Argument file " + d[0] + " does not exist";
+		case ARGUMENT_FILE_UNREADABLE:
+			return "Cannot read argument file " + d[0] + ": " + ((Exception) d[1]).getMessage();
+		case UNKNOWN_PATH_WORD: {
+			String word = (String) d[0];
+			Branch branch = (Branch) d[1];
+			return "Unknown usage - " + word
+					+ ArgParserHelper.getSuggestionsMessage(branch.getSubBranchesIndex().suggest(word))
+					+ "\n" + parser.getUnfinishedPathUsage((List<String>) d[2], (int) d[3], branch);
+		}
+		case UNFINISHED_PATH:
+			return parser.getUnfinishedPathUsage((List<String>) d[0], (int) d[1], (Branch) d[2]);
+		case OPTION_REQUIRES_VALUE:
+			return "Option " + d[0] + " requires a value";
+		case MISSING_ARGUMENT:
+			return "Missing argument for <" + ((EntryPointFunction) d[0]).getParamName((int) d[1]) + ">";
+		case ENTRY_USAGE:
+			return parser.getEntryUsage((EntryPointFunction) d[0]);
+		case TOO_MANY_ARGUMENTS:
+			return "Too many arguments given\n" + parser.getEntryUsage((EntryPointFunction) d[0]);
+		case INVALID_VALUE:
+			return ((ArgumentError) d[0]).getMessage();
+		case INPUT_FILE_MISSING:
+			return "Input file " + d[0] + " does not exist";
+		case UNRESOLVABLE_PATH:
+			return "Cannot resolve path " + d[0] + ": " + ((Exception) d[1]).getMessage();
+		case UNKNOWN_OPTION: {
+			String option = (String) d[0];
+			ProcessOptions options = (ProcessOptions) d[1];
+			return "Unknown option: " + option
+					+ ArgParserHelper.getSuggestionsMessage(options.getOptionNamesIndex().suggest(option));
+		}
+		case UNEXPECTED_OPTIONS:
+			return "Unexpected options: " + StringUtils.join(", ", (Collection<?>) d[0]);
+		case INVALID_SOURCE_VALUE:
+			return (String) d[0];
+		case HELP_IN_PIPELINE:
+			return "Help cannot be printed in a pipeline";
+		case NOT_PIPEABLE:
+			return "Command '" + d[0] + "' does not read its input from the pipeline";
+		default:
+			throw new IllegalStateException("Unhandled error code " + code);
+		}
+	}
+
+}
@@ -0,0 +1,146 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import fr.wonder.commons.systems.argparser.annotations.EntryPoint;
+
+/**
+ * A command read and converted by {@link ArgParser#parse(String[])}, ready to
+ * be run any number of times with {@link ArgParser#execute(ParsedCommand)}.
+ *
+ * <p>
+ * Instances are immutable and can be shared between threads. Each execution
+ * receives its own arguments array and option class instance.
+ */
+public final class ParsedCommand {
+
+	private final EntryPointFunction entry;
+	private final Object[] arguments;
+	private final OptionsTemplate options;
+	private final String help;
+	/** key of the results of cacheable entry points, {@code null} otherwise */
+	private final Object cacheKey;
+
+	/** Creates a command running {@code entry} */
+	ParsedCommand(EntryPointFunction entry, Object[] arguments, OptionsTemplate options) {
+		this.entry = entry;
+		this.arguments = arguments;
+		this.options = options;
+		this.help = null;
+		this.cacheKey = entry.getResultCache() == null ? null : createCacheKey();
+	}
+
+	/** Creates a command printing help */
+	ParsedCommand(String help) {
+		this.entry = null;
+		this.arguments = null;
+		this.options = null;
+		this.help = help;
+		this.cacheKey = null;
+	}
+	
+	private Object createCacheKey() {
+		List<Object> key = new ArrayList<>(Arrays.asList(arguments));
+		if(options != null)
+			key.add(options.getNormalizedValues());
+		return key;
+	}
+
+	/** Returns true if this command prints help instead of running an entry point */
+	public boolean isHelpPrint() {
+		return help != null;
+	}
+
+	/**
+	 * Returns the path of the entry point run by this command, see
+	 * {@link EntryPoint#path()}, {@code null} for help prints.
+	 */
+	public String getEntryPath() {
+		return entry == null ? null : entry.getAnnotation().path();
+	}
+
+	/**
+	 * Returns a copy of the converted arguments, default values included and the
+	 * options instance excluded. Empty for help prints. Stream, iterator and
+	 * channel arguments are not opened yet, their input is given instead.
+	 */
+	public Object[] getArguments() {
+		return arguments == null ? new Object[0] : arguments.clone();
+	}
+
+	EntryPointFunction getEntry() {
+		return entry;
+	}
+
+	/**
+	 * Returns the arguments passed to the entry point method for a new execution,
+	 * opened inputs are added to {@code resources}.
+	 */
+	Object[] getInvocationArguments(List<AutoCloseable> resources) throws IOException {
+		return entry.getInvocationArguments(arguments, options, resources);
+	}
+
+	Object getCacheKey() {
+		return cacheKey;
+	}
+
+	/**
+	 * Returns the values of the fan-out parameter of this command, see
+	 * {@link EntryPointFunction#isFanOut()}.
+	 */
+	Object[] getFanOutElements() {
+		int fixedCount = entry.paramCount()-1;
+		return Arrays.copyOfRange(arguments, fixedCount, arguments.length);
+	}
+
+	/**
+	 * Returns the arguments passed to the entry point method for the
+	 * {@code element}-th value of its fan-out parameter.
+	 */
+	Object[] getFanOutInvocationArguments(int element) {
+		int fixedCount = entry.paramCount()-1;
+		Object[] elementArguments = Arrays.copyOf(arguments, fixedCount+1);
+		elementArguments[fixedCount] = arguments[fixedCount+element];
+		try {
+			return entry.getInvocationArguments(elementArguments, options, null);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // unreachable, fan-out entry points cannot take inputs
+		}
+	}
+
+	/**
+	 * Returns a copy of this command with its input, which must be its last
+	 * argument, replaced by {@code input}.
+	 */
+	ParsedCommand withInput(InputArgument input) {
+		Object[] newArguments = arguments.clone();
+		newArguments[newArguments.length-1] = input;
+		return new ParsedCommand(entry, newArguments, options);
+	}
+
+	/** Returns the input of this command, {@code null} if it has none */
+	InputArgument getInput() {
+		if(arguments == null || arguments.length == 0 || !(arguments[arguments.length-1] instanceof InputArgument))
+			return null;
+		return (InputArgument) arguments[arguments.length-1];
+	}
+
+	String getHelp() {
+		return help;
+	}
+
+	@Override
+	public String toString() {
+		if(help != null)
+			return "help";
+		StringBuilder sb = new StringBuilder(getEntryPath());
+		for(Object arg : arguments)
+			sb.append(' ').append(arg);
+		return sb.toString();
+	}
+
+}
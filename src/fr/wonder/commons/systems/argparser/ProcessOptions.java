@@ -1,11 +1,17 @@
 package fr.wonder.commons.systems.argparser;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.VarHandle;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -15,23 +21,29 @@ import fr.wonder.commons.systems.argparser.annotations.OptionClass;
 
 final class ProcessOptions {
 	
-	private final Map<String, Field> optionFields;
+	private final Map<String, OptionField> optionFields;
 	private final Class<?> clazz;
+	private final InstancePlan instancePlan;
+	private final BKTree optionNamesIndex;
+	private final OptionTable optionTable;
 	
-	private ProcessOptions(Class<?> clazz, Map<String, Field> optionFields) {
+	private ProcessOptions(Class<?> clazz, Map<String, OptionField> optionFields, InstancePlan instancePlan) {
 		this.clazz = Objects.requireNonNull(clazz);
 		this.optionFields = Objects.requireNonNull(optionFields);
+		this.instancePlan = Objects.requireNonNull(instancePlan);
+		this.optionNamesIndex = new BKTree(getAvailableOptionNames());
+		this.optionTable = OptionTable.forOptions(optionFields);
 	}
 	
 	static ProcessOptions createOptionsClass(Class<?> clazz) throws InvalidDeclarationError {
 		if(clazz.getAnnotation(OptionClass.class) == null)
 			throw new IllegalArgumentException("Class" + clazz + " is not an option class");
 		
-		getDefaultConstructor(clazz);
-		Map<String, Field> optionFields = new HashMap<>();
-		collectOptionFields(clazz, optionFields);
+		InstancePlan instancePlan = createInstancePlan(clazz);
+		Map<String, OptionField> optionFields = new LinkedHashMap<>();
+		collectOptionFields(clazz, new VarHandle[0], optionFields);
 		
-		return new ProcessOptions(clazz, optionFields);
+		return new ProcessOptions(clazz, optionFields, instancePlan);
 	}
 	
 	private static Constructor<?> getDefaultConstructor(Class<?> clazz) throws InvalidDeclarationError {
@@ -45,7 +57,7 @@ final class ProcessOptions {
 		}
 	}
 	
-	private static void collectOptionFields(Class<?> clazz, Map<String, Field> optionFields) throws InvalidDeclarationError {
+	private static void collectOptionFields(Class<?> clazz, VarHandle[] holderPath, Map<String, OptionField> optionFields) throws InvalidDeclarationError {
 		if(clazz.getAnnotation(OptionClass.class) == null)
 			throw new IllegalArgumentException("Class" + clazz + " is not an option class");
 		
@@ -56,7 +68,9 @@ final class ProcessOptions {
 			Class<?> type = f.getType();
 			
 			getDefaultConstructor(type); // make sure the type has a default constructor
-			collectOptionFields(type, optionFields);
+			VarHandle[] innerPath = Arrays.copyOf(holderPath, holderPath.length+1);
+			innerPath[holderPath.length] = getFieldHandle(f);
+			collectOptionFields(type, innerPath, optionFields);
 		}
 		
 		// collect @Option fields
@@ -74,40 +88,90 @@ final class ProcessOptions {
 			if(!shortand.isEmpty() && !ArgParserHelper.canBeOptionShortand(shortand))
 				throw new InvalidDeclarationError("Name " + shortand + " in option class " + clazz.getName() + " cannot be a shortand on field " + f);
 			
-			addOptionField(optionFields, name, f);
+			OptionField optionField = new OptionField(f, getFieldHandle(f), holderPath);
+			addOptionField(optionFields, name, optionField);
 			if(!shortand.isEmpty())
-				addOptionField(optionFields, shortand, f);
+				addOptionField(optionFields, shortand, optionField);
 		}
 	}
 	
-	private static void addOptionField(Map<String, Field> optionFields, String name, Field field) throws InvalidDeclarationError {
-		Field overridenField = optionFields.put(name, field);
+	private static void addOptionField(Map<String, OptionField> optionFields, String name, OptionField field) throws InvalidDeclarationError {
+		OptionField overridenField = optionFields.put(name, field);
 		
 		if(overridenField != null)
 			throw new InvalidDeclarationError("Name '" + name + "' of field '" + field + "' collides with field '" + overridenField + "'");
 	}
 	
+	/**
+	 * Returns a lookup with full access to {@code clazz}, the package of
+	 * {@code clazz} must be open to this module (or be in an unnamed module).
+	 */
+	private static Lookup getLookup(Class<?> clazz) throws IllegalAccessException {
+		ProcessOptions.class.getModule().addReads(clazz.getModule());
+		return MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+	}
+	
+	private static VarHandle getFieldHandle(Field field) throws InvalidDeclarationError {
+		if(Modifier.isFinal(field.getModifiers()) || Modifier.isStatic(field.getModifiers()))
+			throw new InvalidDeclarationError("Option field " + field + " cannot be final or static");
+		try {
+			return getLookup(field.getDeclaringClass()).unreflectVarHandle(field);
+		} catch (IllegalAccessException | SecurityException e) {
+			throw new InvalidDeclarationError("Option field " + field + " cannot be accessed", e);
+		}
+	}
+	
 	public Object newInstance() {
 		try {
-			return createOptionClassInstance(clazz);
-		} catch (IllegalAccessException | InvocationTargetException | InstantiationException | InvalidDeclarationError e) {
+			return instancePlan.newInstance();
+		} catch (Throwable e) {
 			throw new IllegalStateException("Cannot instantiace option class " + clazz, e);
 		}
 	}
 	
-	/**
-	 * Creates a new instance of the given option class, with its inner option class filled
-	 * with empty instances.
-	 */
-	private static Object createOptionClassInstance(Class<?> optionClass)
-			throws IllegalAccessException, InvocationTargetException, InstantiationException, InvalidDeclarationError {
-		Object instance = getDefaultConstructor(optionClass).newInstance();
+	private static InstancePlan createInstancePlan(Class<?> optionClass) throws InvalidDeclarationError {
+		MethodHandle constructor;
+		try {
+			constructor = getLookup(optionClass).unreflectConstructor(getDefaultConstructor(optionClass));
+		} catch (IllegalAccessException | SecurityException e) {
+			throw new InvalidDeclarationError("Option class " + optionClass.getName() + " cannot be instantiated", e);
+		}
+		List<VarHandle> innerHandles = new ArrayList<>();
+		List<InstancePlan> innerPlans = new ArrayList<>();
 		for(Field f : optionClass.getDeclaredFields()) {
 			if(f.getType().isAnnotationPresent(OptionClass.class)) {
-				f.set(instance, createOptionClassInstance(f.getType()));
+				innerHandles.add(getFieldHandle(f));
+				innerPlans.add(createInstancePlan(f.getType()));
 			}
 		}
-		return instance;
+		return new InstancePlan(constructor,
+				innerHandles.toArray(VarHandle[]::new),
+				innerPlans.toArray(InstancePlan[]::new));
+	}
+	
+	/**
+	 * Instantiation plan of an option class, creates a new instance of the option
+	 * class with its inner option classes filled with empty instances.
+	 */
+	private static class InstancePlan {
+		
+		private final MethodHandle constructor;
+		private final VarHandle[] innerHandles;
+		private final InstancePlan[] innerPlans;
+		
+		InstancePlan(MethodHandle constructor, VarHandle[] innerHandles, InstancePlan[] innerPlans) {
+			this.constructor = constructor;
+			this.innerHandles = innerHandles;
+			this.innerPlans = innerPlans;
+		}
+		
+		Object newInstance() throws Throwable {
+			Object instance = constructor.invoke();
+			for(int i = 0; i < innerHandles.length; i++)
+				innerHandles[i].set(instance, innerPlans[i].newInstance());
+			return instance;
+		}
+		
 	}
 	
 	public Collection<String> getAvailableOptionNames() {
@@ -116,38 +180,18 @@ final class ProcessOptions {
 		return options;
 	}
 	
-	public Map<String, Field> getOptionFields() {
+	public Map<String, OptionField> getOptionFields() {
 		return optionFields;
 	}
-
-	/**
-	 * When using {@link #newInstance()} a new instance of the OptionClass is created,
-	 * if it has OptionClass fields they are initialized. When options values are filled
-	 * in the Field objects are used to set values of OptionClass objects, the field itself
-	 * does not know which object it corresponds to so this method maps the fields'
-	 * types (only for fields of type OptionClass) to the objects instances of their
-	 * types in the generated instance.
-	 * 
-	 * This works because the same OptionClass type cannot be used more than once in
-	 * an OptionClass hierarchy, so the whole class hierarchy can be flatten to a map.
-	 */
-	public Map<Class<?>, Object> getAllOptionFields(Object instance) throws IllegalAccessException {
-		if(instance.getClass() != clazz)
-			throw new IllegalArgumentException("Expected an instance of " + clazz + ", got an instance of " + instance.getClass());
-		Map<Class<?>, Object> fields = new HashMap<>();
-		fields.put(clazz, instance);
-		collectOptionsFields(instance, fields);
-		return fields;
+	
+	/** Dispatch table of the option names and shorthands, see {@link OptionTable} */
+	public OptionTable getOptionTable() {
+		return optionTable;
 	}
 	
-	private static void collectOptionsFields(Object instance, Map<Class<?>, Object> fieldsMap) throws IllegalAccessException {
-		for(Field f : instance.getClass().getDeclaredFields()) {
-			if(f.getType().isAnnotationPresent(OptionClass.class)) {
-				Object fieldInstance = f.get(instance);
-				fieldsMap.put(f.getType(), fieldInstance);
-				collectOptionsFields(fieldInstance, fieldsMap);
-			}
-		}
+	/** Index of the long option names, used to suggest corrections */
+	public BKTree getOptionNamesIndex() {
+		return optionNamesIndex;
 	}
 	
 }
\ No newline at end of file
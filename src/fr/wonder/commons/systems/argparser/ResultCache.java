@@ -0,0 +1,124 @@
+package fr.wonder.commons.systems.argparser;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import fr.wonder.commons.systems.argparser.annotations.Cacheable;
+
+/**
+ * Results of a {@link Cacheable} entry point, keyed by the normalized
+ * arguments and options of the commands that produced them.
+ *
+ * <p>
+ * Concurrent misses on the same key all run the entry point, the last result
+ * is kept.
+ *
+ * <p>
+ * Collection results are stored as unmodifiable copies and array results are
+ * copied for every hit, so that a caller changing the result it got does not
+ * change the results of later commands, see {@link Cacheable}.
+ */
+final class ResultCache {
+
+	/** returned by {@link #get(Object)} when no valid result is cached */
+	static final Object MISS = new Object();
+
+	private final long ttlNanos;
+	/** the declared return type of the entry point */
+	private final Class<?> resultType;
+	private final Map<Object, CachedResult> results;
+
+	ResultCache(Cacheable annotation, Class<?> resultType) {
+		this.resultType = resultType;
+		int maxSize = annotation.maxSize();
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(annotation.ttlMillis()); // saturates for huge ttls
+		this.results = new LinkedHashMap<>(16, .75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Object, CachedResult> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	synchronized Object get(Object key) {
+		CachedResult result = results.get(key);
+		if(result == null)
+			return MISS;
+		if(System.nanoTime() - result.creationTime > ttlNanos) {
+			results.remove(key);
+			return MISS;
+		}
+		return resultType.isArray() ? copyArray(result.value) : result.value;
+	}
+
+	synchronized void put(Object key, Object value) {
+		results.put(key, new CachedResult(copy(value), System.nanoTime()));
+	}
+
+	private Object copy(Object value) {
+		if(value == null)
+			return null;
+		if(resultType.isArray())
+			return copyArray(value);
+		if(resultType == Set.class)
+			return Collections.unmodifiableSet(new LinkedHashSet<>((Set<?>) value));
+		if(resultType == Map.class)
+			return Collections.unmodifiableMap(new LinkedHashMap<>((Map<?, ?>) value));
+		if(value instanceof Collection && isCopiedAsList(resultType))
+			return Collections.unmodifiableList(new ArrayList<>((Collection<?>) value));
+		return value;
+	}
+
+	/**
+	 * Returns true for the declared result types whose collection values are
+	 * cached as unmodifiable lists.
+	 */
+	static boolean isCopiedAsList(Class<?> type) {
+		return type == List.class || type == Collection.class || type == Iterable.class;
+	}
+
+	/**
+	 * Returns true for the declared result types that can be cached, collections
+	 * and maps must be declared with a type an unmodifiable copy can stand for.
+	 */
+	static boolean canBeCached(Class<?> type) {
+		if(!Collection.class.isAssignableFrom(type) && !Map.class.isAssignableFrom(type))
+			return true;
+		return isCopiedAsList(type) || type == Set.class || type == Map.class;
+	}
+
+	private static Object copyArray(Object array) {
+		if(array == null)
+			return null;
+		int length = Array.getLength(array);
+		Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+		System.arraycopy(array, 0, copy, 0, length);
+		return copy;
+	}
+
+	synchronized void clear() {
+		results.clear();
+	}
+
+	private static class CachedResult {
+
+		final Object value;
+		final long creationTime;
+
+		CachedResult(Object value, long creationTime) {
+			this.value = value;
+			this.creationTime = creationTime;
+		}
+
+	}
+
+}
@@ -0,0 +1,41 @@
+package fr.wonder.commons.systems.argparser.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an {@link EntryPoint} as a pure query, its results are cached by the
+ * {@code ArgParser} and reused when it is run again with the same arguments
+ * and options, without running the method.
+ * 
+ * <p>
+ * Cacheable entry points must return a value, which cannot be a stream, an
+ * iterator or a channel, and cannot take stream, iterator or channel inputs.
+ * Thrown exceptions are never cached.
+ * 
+ * <p>
+ * Cached results are shared by every command that hits the cache, they must
+ * be immutable. Results declared as a {@code List}, {@code Set},
+ * {@code Collection}, {@code Iterable} or {@code Map} are cached as
+ * unmodifiable copies, other collection and map types are rejected. Arrays are
+ * copied for every command. Other objects are returned as they are and must
+ * not be changed by their callers.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cacheable {
+	
+	/**
+	 * The maximum number of cached results, least recently used results are
+	 * evicted first
+	 */
+	public int maxSize() default 256;
+	/**
+	 * The time after which a cached result is discarded, in milliseconds,
+	 * {@link Long#MAX_VALUE} to never discard results
+	 */
+	public long ttlMillis() default 60_000;
+	
+}
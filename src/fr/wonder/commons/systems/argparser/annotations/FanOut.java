@@ -0,0 +1,43 @@
+package fr.wonder.commons.systems.argparser.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Makes the last parameter of an {@link EntryPoint} a fan-out parameter: the
+ * command accepts any number of values for it (at least one) and the method is
+ * run once per value, in parallel, with the same other arguments and options.
+ * 
+ * <p>
+ * The command then returns a {@code FanOutResult} holding the value returned
+ * or the exception thrown for each element.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface FanOut {
+	
+	public static enum Policy {
+		/**
+		 * The first exception thrown is rethrown by the command, elements that were
+		 * not started yet are skipped
+		 */
+		FAIL_FAST,
+		/**
+		 * Every element is run, exceptions are collected in the result
+		 */
+		COLLECT_ERRORS
+	}
+	
+	/**
+	 * The maximum number of elements run at the same time, 0 to use the number
+	 * of available processors
+	 */
+	public int parallelism() default 0;
+	/**
+	 * What to do when the method throws for an element
+	 */
+	public Policy policy() default Policy.FAIL_FAST;
+	
+}
@@ -0,0 +1,38 @@
+package fr.wonder.commons.systems.argparser.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Bounds the executions of an {@link EntryPoint}, so that a host running many
+ * commands keeps a predictable latency.
+ * 
+ * <p>
+ * Executions over the time limit are interrupted and fail with a
+ * {@code CancellationException}, entry points are responsible for reacting
+ * to interruptions. Executions that cannot get a slot among the
+ * {@link #maxConcurrent()} running ones wait at most
+ * {@link #queueTimeoutMillis()} and are then rejected with a
+ * {@code RejectedExecutionException}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Limits {
+	
+	/**
+	 * The maximum duration of an execution in milliseconds, 0 for no limit
+	 */
+	public long timeoutMillis() default 0;
+	/**
+	 * The maximum number of executions running at the same time, 0 for no limit
+	 */
+	public int maxConcurrent() default 0;
+	/**
+	 * The time an execution waits for a slot when {@link #maxConcurrent()} are
+	 * already running, in milliseconds, 0 to reject it right away
+	 */
+	public long queueTimeoutMillis() default 0;
+	
+}
@@ -0,0 +1,173 @@
+package fr.wonder.commons.tests;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.sun.management.ThreadMXBean;
+
+import fr.wonder.commons.systems.argparser.ArgParser;
+
+/**
+ * Measures the construction of {@link ArgParser}s, running commands, help
+ * rendering and the conversion of arguments.
+ *
+ * <p>
+ * Each benchmark is warmed up then measured over several timed iterations,
+ * the time per operation is reported with its standard deviation, along with
+ * the bytes allocated per operation, the allocation rate and the number and
+ * duration of garbage collections during the measurement.
+ *
+ * <p>
+ * Arguments are optional filters, only the benchmarks whose name contains
+ * one of them are run.
+ */
+public class ArgParserBenchmark {
+
+	private static final int WARMUP_ITERATIONS = 5;
+	private static final int MEASUREMENT_ITERATIONS = 5;
+	private static final long ITERATION_NANOS = 500_000_000L;
+
+	/** consumes benchmark results so that they cannot be optimized away */
+	private static volatile int sink;
+
+	private final List<String> filters;
+
+	private ArgParserBenchmark(List<String> filters) {
+		this.filters = filters;
+	}
+
+	public static void main(String[] args) throws Exception {
+		ArgParserBenchmark b = new ArgParserBenchmark(List.of(args));
+		PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+		System.out.printf("%-32s %14s %10s %12s %10s %6s %8s%n",
+				"benchmark", "ns/op", "error", "B/op", "MB/s", "gc", "gc ms");
+
+		b.run("construct.small", () -> new ArgParser("bench", ProcessArguments.class, discard));
+		b.run("construct.medium", () -> new ArgParser("bench", ProcessArguments2.class, discard));
+		b.run("construct.huge", () -> new ArgParser("bench", BenchmarkEntryPoints.class, discard));
+
+		ArgParser huge = new ArgParser("bench", BenchmarkEntryPoints.class, discard);
+		for(int n = 0; n <= BenchmarkEntryPoints.MAX_ARGUMENTS; n += 2)
+			b.runCommand(huge, "run.args" + n, sumCommand(n, 0));
+		for(int n = 0; n <= 16; n += 4)
+			b.runCommand(huge, "run.options" + n, sumCommand(2, n));
+		b.runCommand(huge, "run.deepPath", new String[] { "group15", "cmd1", "4" });
+
+		ArgParser small = new ArgParser("bench", ProcessArguments.class, discard);
+		b.run("help.root.small", () -> small.parse(new String[] { "--help" }));
+		b.run("help.root.huge", () -> huge.parse(new String[] { "--help" }));
+		b.run("help.branch.huge", () -> huge.parse(new String[] { "--help", "group3" }));
+		b.run("help.entry.huge", () -> huge.parse(new String[] { "--help", "group3", "cmd1" }));
+
+		// conversions are measured through commands taking a single argument of
+		// each type, the cost of a conversion is the difference to convert.string
+		for(String[] value : new String[][] {
+				{ "string", "value" }, { "int", "123456" }, { "double", "3.14159" },
+				{ "enum", "E2" }, { "file", "dir/file.txt" }, { "path", "dir/file.txt" } })
+			b.runParse(huge, "convert." + value[0], new String[] { "convert", value[0], value[1] });
+	}
+
+	/**
+	 * Returns a {@code sum} command with {@code argumentCount} arguments and
+	 * {@code optionCount} options, half of them flags.
+	 */
+	private static String[] sumCommand(int argumentCount, int optionCount) {
+		List<String> words = new ArrayList<>();
+		words.add("sum");
+		words.add("args" + argumentCount);
+		for(int i = 0; i < optionCount; i++) {
+			if(i % 2 == 0) {
+				words.add("--int" + i/2);
+				words.add(String.valueOf(i));
+			} else {
+				words.add("--flag" + i/2);
+			}
+		}
+		for(int i = 0; i < argumentCount; i++)
+			words.add(String.valueOf(i));
+		return words.toArray(String[]::new);
+	}
+
+	private void runParse(ArgParser parser, String name, String[] command) throws Exception {
+		run(name, () -> parser.parse(command));
+	}
+
+	private void runCommand(ArgParser parser, String name, String[] command) throws Exception {
+		// same as run(String[]) but invalid commands fail the benchmark instead of being dumped
+		run(name, () -> parser.execute(parser.parse(command)));
+	}
+
+	private void run(String name, Callable<Object> benchmark) throws Exception {
+		if(!filters.isEmpty() && filters.stream().noneMatch(name::contains))
+			return;
+
+		for(int i = 0; i < WARMUP_ITERATIONS; i++)
+			iterate(benchmark);
+
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long gcCount = -gcCount();
+		long gcTime = -gcTime();
+		long allocated = -threads.getThreadAllocatedBytes(thread);
+		long operations = 0;
+		long nanos = 0;
+		double[] nanosPerOp = new double[MEASUREMENT_ITERATIONS];
+		for(int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+			long start = System.nanoTime();
+			long ops = iterate(benchmark);
+			long elapsed = System.nanoTime() - start;
+			nanosPerOp[i] = (double) elapsed / ops;
+			operations += ops;
+			nanos += elapsed;
+		}
+		allocated += threads.getThreadAllocatedBytes(thread);
+		gcCount += gcCount();
+		gcTime += gcTime();
+
+		double mean = (double) nanos / operations;
+		double variance = 0;
+		for(double n : nanosPerOp)
+			variance += (n - mean) * (n - mean);
+		double error = Math.sqrt(variance / (MEASUREMENT_ITERATIONS - 1));
+		double allocationRate = allocated / (nanos / 1e9) / (1024 * 1024);
+
+		System.out.printf("%-32s %14.1f %10.1f %12d %10.1f %6d %8d%n",
+				name, mean, error, allocated / operations, allocationRate, gcCount, gcTime);
+	}
+
+	/** Runs the benchmark for {@link #ITERATION_NANOS}, returns the number of operations */
+	private static long iterate(Callable<Object> benchmark) throws Exception {
+		long end = System.nanoTime() + ITERATION_NANOS;
+		long ops = 0;
+		int hash = 0;
+		do {
+			// checking the time every few calls keeps System.nanoTime out of fast benchmarks
+			for(int i = 0; i < 16; i++)
+				hash += System.identityHashCode(benchmark.call());
+			ops += 16;
+		} while(System.nanoTime() < end);
+		sink = hash;
+		return ops;
+	}
+
+	private static long gcCount() {
+		long count = 0;
+		for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			count += Math.max(0, gc.getCollectionCount());
+		return count;
+	}
+
+	private static long gcTime() {
+		long time = 0;
+		for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			time += Math.max(0, gc.getCollectionTime());
+		return time;
+	}
+
+}
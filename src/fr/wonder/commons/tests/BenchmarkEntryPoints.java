@@ -0,0 +1,810 @@
+package fr.wonder.commons.tests;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import fr.wonder.commons.systems.argparser.annotations.EntryPoint;
+import fr.wonder.commons.systems.argparser.annotations.Option;
+import fr.wonder.commons.systems.argparser.annotations.OptionClass;
+import fr.wonder.commons.systems.reflection.FooBar.EnumFoo;
+
+/**
+ * Synthetic entry points measured by {@link ArgParserBenchmark}: a large tree
+ * of {@code groupN cmdM} commands, {@code sum argsN} commands taking from 0 to
+ * 8 arguments and {@code convert <type>} commands taking a single argument of
+ * each convertible type, all sharing an option class with 32 options.
+ *
+ * <p>
+ * Entry points do not print anything so that the benchmark only measures the
+ * parser.
+ */
+public class BenchmarkEntryPoints {
+
+	public static final int GROUPS = 16;
+	public static final int COMMANDS_PER_GROUP = 8;
+	public static final int MAX_ARGUMENTS = 8;
+
+	@OptionClass
+	public static class Options {
+		@Option(name = "--int0", desc = "Integer option 0")
+		public int int0;
+		@Option(name = "--int1", desc = "Integer option 1")
+		public int int1;
+		@Option(name = "--int2", desc = "Integer option 2")
+		public int int2;
+		@Option(name = "--int3", desc = "Integer option 3")
+		public int int3;
+		@Option(name = "--int4", desc = "Integer option 4")
+		public int int4;
+		@Option(name = "--int5", desc = "Integer option 5")
+		public int int5;
+		@Option(name = "--int6", desc = "Integer option 6")
+		public int int6;
+		@Option(name = "--int7", desc = "Integer option 7")
+		public int int7;
+		@Option(name = "--int8", desc = "Integer option 8")
+		public int int8;
+		@Option(name = "--int9", desc = "Integer option 9")
+		public int int9;
+		@Option(name = "--int10", desc = "Integer option 10")
+		public int int10;
+		@Option(name = "--int11", desc = "Integer option 11")
+		public int int11;
+		@Option(name = "--int12", desc = "Integer option 12")
+		public int int12;
+		@Option(name = "--int13", desc = "Integer option 13")
+		public int int13;
+		@Option(name = "--int14", desc = "Integer option 14")
+		public int int14;
+		@Option(name = "--int15", desc = "Integer option 15")
+		public int int15;
+		@Option(name = "--flag0", shorthand = "-a")
+		public boolean flag0;
+		@Option(name = "--flag1", shorthand = "-b")
+		public boolean flag1;
+		@Option(name = "--flag2", shorthand = "-c")
+		public boolean flag2;
+		@Option(name = "--flag3", shorthand = "-d")
+		public boolean flag3;
+		@Option(name = "--flag4", shorthand = "-e")
+		public boolean flag4;
+		@Option(name = "--flag5", shorthand = "-f")
+		public boolean flag5;
+		@Option(name = "--flag6", shorthand = "-g")
+		public boolean flag6;
+		@Option(name = "--flag7", shorthand = "-h")
+		public boolean flag7;
+		@Option(name = "--flag8", shorthand = "-i")
+		public boolean flag8;
+		@Option(name = "--flag9", shorthand = "-j")
+		public boolean flag9;
+		@Option(name = "--flag10", shorthand = "-k")
+		public boolean flag10;
+		@Option(name = "--flag11", shorthand = "-l")
+		public boolean flag11;
+		@Option(name = "--flag12", shorthand = "-m")
+		public boolean flag12;
+		@Option(name = "--flag13", shorthand = "-n")
+		public boolean flag13;
+		@Option(name = "--flag14", shorthand = "-o")
+		public boolean flag14;
+		@Option(name = "--flag15", shorthand = "-p")
+		public boolean flag15;
+	}
+
+	@EntryPoint(path = "group0 cmd0", help = "Synthetic command 0 of group 0")
+	public static int group0Cmd0(Options options, int a) {
+		return a;
+	}
+
+	@EntryPoint(path = "group0 cmd1", help = "Synthetic command 1 of group 0")
+	public static int group0Cmd1(Options options, int a, String b) {
+		return a + b.length();
+	}
+
+	@EntryPoint(path = "group0 cmd2", help = "Synthetic command 2 of group 0")
+	public static int group0Cmd2(Options options, String a) {
+		return a.length();
+	}
+
+	@EntryPoint(path = "group0 cmd3", help = "Synthetic command 3 of group 0")
+	public static int group0Cmd3(Options options, long a, double b) {
+		return (int) (a + b);
+	}
+
+	@EntryPoint(path = "group0 cmd4", help = "Synthetic command 4 of group 0")
+	public static int group0Cmd4(Options options) {
+		return 0;
+	}
+
+	@EntryPoint(path = "group0 cmd5", help = "Synthetic command 5 of group 0")
+	public static int group0Cmd5(Options options, float a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group0 cmd6", help = "Synthetic command 6 of group 0")
+	public static int group0Cmd6(Options options, int a, int b, int c) {
+		return a + b + c;
+	}
+
+	@EntryPoint(path = "group0 cmd7", help = "Synthetic command 7 of group 0")
+	public static int group0Cmd7(Options options, double a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group1 cmd0", help = "Synthetic command 0 of group 1")
+	public static int group1Cmd0(Options options, int a, String b) {
+		return a + b.length();
+	}
+
+	@EntryPoint(path = "group1 cmd1", help = "Synthetic command 1 of group 1")
+	public static int group1Cmd1(Options options, String a) {
+		return a.length();
+	}
+
+	@EntryPoint(path = "group1 cmd2", help = "Synthetic command 2 of group 1")
+	public static int group1Cmd2(Options options, long a, double b) {
+		return (int) (a + b);
+	}
+
+	@EntryPoint(path = "group1 cmd3", help = "Synthetic command 3 of group 1")
+	public static int group1Cmd3(Options options) {
+		return 0;
+	}
+
+	@EntryPoint(path = "group1 cmd4", help = "Synthetic command 4 of group 1")
+	public static int group1Cmd4(Options options, float a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group1 cmd5", help = "Synthetic command 5 of group 1")
+	public static int group1Cmd5(Options options, int a, int b, int c) {
+		return a + b + c;
+	}
+
+	@EntryPoint(path = "group1 cmd6", help = "Synthetic command 6 of group 1")
+	public static int group1Cmd6(Options options, double a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group1 cmd7", help = "Synthetic command 7 of group 1")
+	public static int group1Cmd7(Options options, int a) {
+		return a;
+	}
+
+	@EntryPoint(path = "group2 cmd0", help = "Synthetic command 0 of group 2")
+	public static int group2Cmd0(Options options, String a) {
+		return a.length();
+	}
+
+	@EntryPoint(path = "group2 cmd1", help = "Synthetic command 1 of group 2")
+	public static int group2Cmd1(Options options, long a, double b) {
+		return (int) (a + b);
+	}
+
+	@EntryPoint(path = "group2 cmd2", help = "Synthetic command 2 of group 2")
+	public static int group2Cmd2(Options options) {
+		return 0;
+	}
+
+	@EntryPoint(path = "group2 cmd3", help = "Synthetic command 3 of group 2")
+	public static int group2Cmd3(Options options, float a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group2 cmd4", help = "Synthetic command 4 of group 2")
+	public static int group2Cmd4(Options options, int a, int b, int c) {
+		return a + b + c;
+	}
+
+	@EntryPoint(path = "group2 cmd5", help = "Synthetic command 5 of group 2")
+	public static int group2Cmd5(Options options, double a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group2 cmd6", help = "Synthetic command 6 of group 2")
+	public static int group2Cmd6(Options options, int a) {
+		return a;
+	}
+
+	@EntryPoint(path = "group2 cmd7", help = "Synthetic command 7 of group 2")
+	public static int group2Cmd7(Options options, int a, String b) {
+		return a + b.length();
+	}
+
+	@EntryPoint(path = "group3 cmd0", help = "Synthetic command 0 of group 3")
+	public static int group3Cmd0(Options options, long a, double b) {
+		return (int) (a + b);
+	}
+
+	@EntryPoint(path = "group3 cmd1", help = "Synthetic command 1 of group 3")
+	public static int group3Cmd1(Options options) {
+		return 0;
+	}
+
+	@EntryPoint(path = "group3 cmd2", help = "Synthetic command 2 of group 3")
+	public static int group3Cmd2(Options options, float a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group3 cmd3", help = "Synthetic command 3 of group 3")
+	public static int group3Cmd3(Options options, int a, int b, int c) {
+		return a + b + c;
+	}
+
+	@EntryPoint(path = "group3 cmd4", help = "Synthetic command 4 of group 3")
+	public static int group3Cmd4(Options options, double a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group3 cmd5", help = "Synthetic command 5 of group 3")
+	public static int group3Cmd5(Options options, int a) {
+		return a;
+	}
+
+	@EntryPoint(path = "group3 cmd6", help = "Synthetic command 6 of group 3")
+	public static int group3Cmd6(Options options, int a, String b) {
+		return a + b.length();
+	}
+
+	@EntryPoint(path = "group3 cmd7", help = "Synthetic command 7 of group 3")
+	public static int group3Cmd7(Options options, String a) {
+		return a.length();
+	}
+
+	@EntryPoint(path = "group4 cmd0", help = "Synthetic command 0 of group 4")
+	public static int group4Cmd0(Options options) {
+		return 0;
+	}
+
+	@EntryPoint(path = "group4 cmd1", help = "Synthetic command 1 of group 4")
+	public static int group4Cmd1(Options options, float a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group4 cmd2", help = "Synthetic command 2 of group 4")
+	public static int group4Cmd2(Options options, int a, int b, int c) {
+		return a + b + c;
+	}
+
+	@EntryPoint(path = "group4 cmd3", help = "Synthetic command 3 of group 4")
+	public static int group4Cmd3(Options options, double a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group4 cmd4", help = "Synthetic command 4 of group 4")
+	public static int group4Cmd4(Options options, int a) {
+		return a;
+	}
+
+	@EntryPoint(path = "group4 cmd5", help = "Synthetic command 5 of group 4")
+	public static int group4Cmd5(Options options, int a, String b) {
+		return a + b.length();
+	}
+
+	@EntryPoint(path = "group4 cmd6", help = "Synthetic command 6 of group 4")
+	public static int group4Cmd6(Options options, String a) {
+		return a.length();
+	}
+
+	@EntryPoint(path = "group4 cmd7", help = "Synthetic command 7 of group 4")
+	public static int group4Cmd7(Options options, long a, double b) {
+		return (int) (a + b);
+	}
+
+	@EntryPoint(path = "group5 cmd0", help = "Synthetic command 0 of group 5")
+	public static int group5Cmd0(Options options, float a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group5 cmd1", help = "Synthetic command 1 of group 5")
+	public static int group5Cmd1(Options options, int a, int b, int c) {
+		return a + b + c;
+	}
+
+	@EntryPoint(path = "group5 cmd2", help = "Synthetic command 2 of group 5")
+	public static int group5Cmd2(Options options, double a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group5 cmd3", help = "Synthetic command 3 of group 5")
+	public static int group5Cmd3(Options options, int a) {
+		return a;
+	}
+
+	@EntryPoint(path = "group5 cmd4", help = "Synthetic command 4 of group 5")
+	public static int group5Cmd4(Options options, int a, String b) {
+		return a + b.length();
+	}
+
+	@EntryPoint(path = "group5 cmd5", help = "Synthetic command 5 of group 5")
+	public static int group5Cmd5(Options options, String a) {
+		return a.length();
+	}
+
+	@EntryPoint(path = "group5 cmd6", help = "Synthetic command 6 of group 5")
+	public static int group5Cmd6(Options options, long a, double b) {
+		return (int) (a + b);
+	}
+
+	@EntryPoint(path = "group5 cmd7", help = "Synthetic command 7 of group 5")
+	public static int group5Cmd7(Options options) {
+		return 0;
+	}
+
+	@EntryPoint(path = "group6 cmd0", help = "Synthetic command 0 of group 6")
+	public static int group6Cmd0(Options options, int a, int b, int c) {
+		return a + b + c;
+	}
+
+	@EntryPoint(path = "group6 cmd1", help = "Synthetic command 1 of group 6")
+	public static int group6Cmd1(Options options, double a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group6 cmd2", help = "Synthetic command 2 of group 6")
+	public static int group6Cmd2(Options options, int a) {
+		return a;
+	}
+
+	@EntryPoint(path = "group6 cmd3", help = "Synthetic command 3 of group 6")
+	public static int group6Cmd3(Options options, int a, String b) {
+		return a + b.length();
+	}
+
+	@EntryPoint(path = "group6 cmd4", help = "Synthetic command 4 of group 6")
+	public static int group6Cmd4(Options options, String a) {
+		return a.length();
+	}
+
+	@EntryPoint(path = "group6 cmd5", help = "Synthetic command 5 of group 6")
+	public static int group6Cmd5(Options options, long a, double b) {
+		return (int) (a + b);
+	}
+
+	@EntryPoint(path = "group6 cmd6", help = "Synthetic command 6 of group 6")
+	public static int group6Cmd6(Options options) {
+		return 0;
+	}
+
+	@EntryPoint(path = "group6 cmd7", help = "Synthetic command 7 of group 6")
+	public static int group6Cmd7(Options options, float a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group7 cmd0", help = "Synthetic command 0 of group 7")
+	public static int group7Cmd0(Options options, double a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group7 cmd1", help = "Synthetic command 1 of group 7")
+	public static int group7Cmd1(Options options, int a) {
+		return a;
+	}
+
+	@EntryPoint(path = "group7 cmd2", help = "Synthetic command 2 of group 7")
+	public static int group7Cmd2(Options options, int a, String b) {
+		return a + b.length();
+	}
+
+	@EntryPoint(path = "group7 cmd3", help = "Synthetic command 3 of group 7")
+	public static int group7Cmd3(Options options, String a) {
+		return a.length();
+	}
+
+	@EntryPoint(path = "group7 cmd4", help = "Synthetic command 4 of group 7")
+	public static int group7Cmd4(Options options, long a, double b) {
+		return (int) (a + b);
+	}
+
+	@EntryPoint(path = "group7 cmd5", help = "Synthetic command 5 of group 7")
+	public static int group7Cmd5(Options options) {
+		return 0;
+	}
+
+	@EntryPoint(path = "group7 cmd6", help = "Synthetic command 6 of group 7")
+	public static int group7Cmd6(Options options, float a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group7 cmd7", help = "Synthetic command 7 of group 7")
+	public static int group7Cmd7(Options options, int a, int b, int c) {
+		return a + b + c;
+	}
+
+	@EntryPoint(path = "group8 cmd0", help = "Synthetic command 0 of group 8")
+	public static int group8Cmd0(Options options, int a) {
+		return a;
+	}
+
+	@EntryPoint(path = "group8 cmd1", help = "Synthetic command 1 of group 8")
+	public static int group8Cmd1(Options options, int a, String b) {
+		return a + b.length();
+	}
+
+	@EntryPoint(path = "group8 cmd2", help = "Synthetic command 2 of group 8")
+	public static int group8Cmd2(Options options, String a) {
+		return a.length();
+	}
+
+	@EntryPoint(path = "group8 cmd3", help = "Synthetic command 3 of group 8")
+	public static int group8Cmd3(Options options, long a, double b) {
+		return (int) (a + b);
+	}
+
+	@EntryPoint(path = "group8 cmd4", help = "Synthetic command 4 of group 8")
+	public static int group8Cmd4(Options options) {
+		return 0;
+	}
+
+	@EntryPoint(path = "group8 cmd5", help = "Synthetic command 5 of group 8")
+	public static int group8Cmd5(Options options, float a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group8 cmd6", help = "Synthetic command 6 of group 8")
+	public static int group8Cmd6(Options options, int a, int b, int c) {
+		return a + b + c;
+	}
+
+	@EntryPoint(path = "group8 cmd7", help = "Synthetic command 7 of group 8")
+	public static int group8Cmd7(Options options, double a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group9 cmd0", help = "Synthetic command 0 of group 9")
+	public static int group9Cmd0(Options options, int a, String b) {
+		return a + b.length();
+	}
+
+	@EntryPoint(path = "group9 cmd1", help = "Synthetic command 1 of group 9")
+	public static int group9Cmd1(Options options, String a) {
+		return a.length();
+	}
+
+	@EntryPoint(path = "group9 cmd2", help = "Synthetic command 2 of group 9")
+	public static int group9Cmd2(Options options, long a, double b) {
+		return (int) (a + b);
+	}
+
+	@EntryPoint(path = "group9 cmd3", help = "Synthetic command 3 of group 9")
+	public static int group9Cmd3(Options options) {
+		return 0;
+	}
+
+	@EntryPoint(path = "group9 cmd4", help = "Synthetic command 4 of group 9")
+	public static int group9Cmd4(Options options, float a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group9 cmd5", help = "Synthetic command 5 of group 9")
+	public static int group9Cmd5(Options options, int a, int b, int c) {
+		return a + b + c;
+	}
+
+	@EntryPoint(path = "group9 cmd6", help = "Synthetic command 6 of group 9")
+	public static int group9Cmd6(Options options, double a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group9 cmd7", help = "Synthetic command 7 of group 9")
+	public static int group9Cmd7(Options options, int a) {
+		return a;
+	}
+
+	@EntryPoint(path = "group10 cmd0", help = "Synthetic command 0 of group 10")
+	public static int group10Cmd0(Options options, String a) {
+		return a.length();
+	}
+
+	@EntryPoint(path = "group10 cmd1", help = "Synthetic command 1 of group 10")
+	public static int group10Cmd1(Options options, long a, double b) {
+		return (int) (a + b);
+	}
+
+	@EntryPoint(path = "group10 cmd2", help = "Synthetic command 2 of group 10")
+	public static int group10Cmd2(Options options) {
+		return 0;
+	}
+
+	@EntryPoint(path = "group10 cmd3", help = "Synthetic command 3 of group 10")
+	public static int group10Cmd3(Options options, float a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group10 cmd4", help = "Synthetic command 4 of group 10")
+	public static int group10Cmd4(Options options, int a, int b, int c) {
+		return a + b + c;
+	}
+
+	@EntryPoint(path = "group10 cmd5", help = "Synthetic command 5 of group 10")
+	public static int group10Cmd5(Options options, double a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group10 cmd6", help = "Synthetic command 6 of group 10")
+	public static int group10Cmd6(Options options, int a) {
+		return a;
+	}
+
+	@EntryPoint(path = "group10 cmd7", help = "Synthetic command 7 of group 10")
+	public static int group10Cmd7(Options options, int a, String b) {
+		return a + b.length();
+	}
+
+	@EntryPoint(path = "group11 cmd0", help = "Synthetic command 0 of group 11")
+	public static int group11Cmd0(Options options, long a, double b) {
+		return (int) (a + b);
+	}
+
+	@EntryPoint(path = "group11 cmd1", help = "Synthetic command 1 of group 11")
+	public static int group11Cmd1(Options options) {
+		return 0;
+	}
+
+	@EntryPoint(path = "group11 cmd2", help = "Synthetic command 2 of group 11")
+	public static int group11Cmd2(Options options, float a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group11 cmd3", help = "Synthetic command 3 of group 11")
+	public static int group11Cmd3(Options options, int a, int b, int c) {
+		return a + b + c;
+	}
+
+	@EntryPoint(path = "group11 cmd4", help = "Synthetic command 4 of group 11")
+	public static int group11Cmd4(Options options, double a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group11 cmd5", help = "Synthetic command 5 of group 11")
+	public static int group11Cmd5(Options options, int a) {
+		return a;
+	}
+
+	@EntryPoint(path = "group11 cmd6", help = "Synthetic command 6 of group 11")
+	public static int group11Cmd6(Options options, int a, String b) {
+		return a + b.length();
+	}
+
+	@EntryPoint(path = "group11 cmd7", help = "Synthetic command 7 of group 11")
+	public static int group11Cmd7(Options options, String a) {
+		return a.length();
+	}
+
+	@EntryPoint(path = "group12 cmd0", help = "Synthetic command 0 of group 12")
+	public static int group12Cmd0(Options options) {
+		return 0;
+	}
+
+	@EntryPoint(path = "group12 cmd1", help = "Synthetic command 1 of group 12")
+	public static int group12Cmd1(Options options, float a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group12 cmd2", help = "Synthetic command 2 of group 12")
+	public static int group12Cmd2(Options options, int a, int b, int c) {
+		return a + b + c;
+	}
+
+	@EntryPoint(path = "group12 cmd3", help = "Synthetic command 3 of group 12")
+	public static int group12Cmd3(Options options, double a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group12 cmd4", help = "Synthetic command 4 of group 12")
+	public static int group12Cmd4(Options options, int a) {
+		return a;
+	}
+
+	@EntryPoint(path = "group12 cmd5", help = "Synthetic command 5 of group 12")
+	public static int group12Cmd5(Options options, int a, String b) {
+		return a + b.length();
+	}
+
+	@EntryPoint(path = "group12 cmd6", help = "Synthetic command 6 of group 12")
+	public static int group12Cmd6(Options options, String a) {
+		return a.length();
+	}
+
+	@EntryPoint(path = "group12 cmd7", help = "Synthetic command 7 of group 12")
+	public static int group12Cmd7(Options options, long a, double b) {
+		return (int) (a + b);
+	}
+
+	@EntryPoint(path = "group13 cmd0", help = "Synthetic command 0 of group 13")
+	public static int group13Cmd0(Options options, float a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group13 cmd1", help = "Synthetic command 1 of group 13")
+	public static int group13Cmd1(Options options, int a, int b, int c) {
+		return a + b + c;
+	}
+
+	@EntryPoint(path = "group13 cmd2", help = "Synthetic command 2 of group 13")
+	public static int group13Cmd2(Options options, double a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group13 cmd3", help = "Synthetic command 3 of group 13")
+	public static int group13Cmd3(Options options, int a) {
+		return a;
+	}
+
+	@EntryPoint(path = "group13 cmd4", help = "Synthetic command 4 of group 13")
+	public static int group13Cmd4(Options options, int a, String b) {
+		return a + b.length();
+	}
+
+	@EntryPoint(path = "group13 cmd5", help = "Synthetic command 5 of group 13")
+	public static int group13Cmd5(Options options, String a) {
+		return a.length();
+	}
+
+	@EntryPoint(path = "group13 cmd6", help = "Synthetic command 6 of group 13")
+	public static int group13Cmd6(Options options, long a, double b) {
+		return (int) (a + b);
+	}
+
+	@EntryPoint(path = "group13 cmd7", help = "Synthetic command 7 of group 13")
+	public static int group13Cmd7(Options options) {
+		return 0;
+	}
+
+	@EntryPoint(path = "group14 cmd0", help = "Synthetic command 0 of group 14")
+	public static int group14Cmd0(Options options, int a, int b, int c) {
+		return a + b + c;
+	}
+
+	@EntryPoint(path = "group14 cmd1", help = "Synthetic command 1 of group 14")
+	public static int group14Cmd1(Options options, double a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group14 cmd2", help = "Synthetic command 2 of group 14")
+	public static int group14Cmd2(Options options, int a) {
+		return a;
+	}
+
+	@EntryPoint(path = "group14 cmd3", help = "Synthetic command 3 of group 14")
+	public static int group14Cmd3(Options options, int a, String b) {
+		return a + b.length();
+	}
+
+	@EntryPoint(path = "group14 cmd4", help = "Synthetic command 4 of group 14")
+	public static int group14Cmd4(Options options, String a) {
+		return a.length();
+	}
+
+	@EntryPoint(path = "group14 cmd5", help = "Synthetic command 5 of group 14")
+	public static int group14Cmd5(Options options, long a, double b) {
+		return (int) (a + b);
+	}
+
+	@EntryPoint(path = "group14 cmd6", help = "Synthetic command 6 of group 14")
+	public static int group14Cmd6(Options options) {
+		return 0;
+	}
+
+	@EntryPoint(path = "group14 cmd7", help = "Synthetic command 7 of group 14")
+	public static int group14Cmd7(Options options, float a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group15 cmd0", help = "Synthetic command 0 of group 15")
+	public static int group15Cmd0(Options options, double a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group15 cmd1", help = "Synthetic command 1 of group 15")
+	public static int group15Cmd1(Options options, int a) {
+		return a;
+	}
+
+	@EntryPoint(path = "group15 cmd2", help = "Synthetic command 2 of group 15")
+	public static int group15Cmd2(Options options, int a, String b) {
+		return a + b.length();
+	}
+
+	@EntryPoint(path = "group15 cmd3", help = "Synthetic command 3 of group 15")
+	public static int group15Cmd3(Options options, String a) {
+		return a.length();
+	}
+
+	@EntryPoint(path = "group15 cmd4", help = "Synthetic command 4 of group 15")
+	public static int group15Cmd4(Options options, long a, double b) {
+		return (int) (a + b);
+	}
+
+	@EntryPoint(path = "group15 cmd5", help = "Synthetic command 5 of group 15")
+	public static int group15Cmd5(Options options) {
+		return 0;
+	}
+
+	@EntryPoint(path = "group15 cmd6", help = "Synthetic command 6 of group 15")
+	public static int group15Cmd6(Options options, float a) {
+		return (int) a;
+	}
+
+	@EntryPoint(path = "group15 cmd7", help = "Synthetic command 7 of group 15")
+	public static int group15Cmd7(Options options, int a, int b, int c) {
+		return a + b + c;
+	}
+
+	@EntryPoint(path = "sum args0", help = "Sums 0 integers")
+	public static int sum0(Options options) {
+		return 0;
+	}
+
+	@EntryPoint(path = "sum args1", help = "Sums 1 integers")
+	public static int sum1(Options options, int a0) {
+		return a0;
+	}
+
+	@EntryPoint(path = "sum args2", help = "Sums 2 integers")
+	public static int sum2(Options options, int a0, int a1) {
+		return a0 + a1;
+	}
+
+	@EntryPoint(path = "sum args3", help = "Sums 3 integers")
+	public static int sum3(Options options, int a0, int a1, int a2) {
+		return a0 + a1 + a2;
+	}
+
+	@EntryPoint(path = "sum args4", help = "Sums 4 integers")
+	public static int sum4(Options options, int a0, int a1, int a2, int a3) {
+		return a0 + a1 + a2 + a3;
+	}
+
+	@EntryPoint(path = "sum args5", help = "Sums 5 integers")
+	public static int sum5(Options options, int a0, int a1, int a2, int a3, int a4) {
+		return a0 + a1 + a2 + a3 + a4;
+	}
+
+	@EntryPoint(path = "sum args6", help = "Sums 6 integers")
+	public static int sum6(Options options, int a0, int a1, int a2, int a3, int a4, int a5) {
+		return a0 + a1 + a2 + a3 + a4 + a5;
+	}
+
+	@EntryPoint(path = "sum args7", help = "Sums 7 integers")
+	public static int sum7(Options options, int a0, int a1, int a2, int a3, int a4, int a5, int a6) {
+		return a0 + a1 + a2 + a3 + a4 + a5 + a6;
+	}
+
+	@EntryPoint(path = "sum args8", help = "Sums 8 integers")
+	public static int sum8(Options options, int a0, int a1, int a2, int a3, int a4, int a5, int a6, int a7) {
+		return a0 + a1 + a2 + a3 + a4 + a5 + a6 + a7;
+	}
+
+	@EntryPoint(path = "convert string", help = "Converts a String argument")
+	public static int convertString(String v) {
+		return v.length();
+	}
+
+	@EntryPoint(path = "convert int", help = "Converts a int argument")
+	public static int convertInt(int v) {
+		return v;
+	}
+
+	@EntryPoint(path = "convert double", help = "Converts a double argument")
+	public static int convertDouble(double v) {
+		return (int) v;
+	}
+
+	@EntryPoint(path = "convert enum", help = "Converts a EnumFoo argument")
+	public static int convertEnum(EnumFoo v) {
+		return v.ordinal();
+	}
+
+	@EntryPoint(path = "convert file", help = "Converts a File argument")
+	public static int convertFile(File v) {
+		return v.getName().length();
+	}
+
+	@EntryPoint(path = "convert path", help = "Converts a Path argument")
+	public static int convertPath(Path v) {
+		return v.getNameCount();
+	}
+
+}
@@ -0,0 +1,58 @@
+package fr.wonder.commons.tests;
+
+import java.lang.reflect.Method;
+
+import fr.wonder.commons.systems.argparser.InvalidDeclarationError;
+import fr.wonder.commons.systems.argparser.NativeImageConfig;
+import fr.wonder.commons.systems.argparser.annotations.EntryPoint;
+import fr.wonder.commons.systems.reflection.FooBar.EnumFoo;
+
+public class NativeImageConfigCheck {
+
+	public static void main(String[] args) throws InvalidDeclarationError {
+		String config = NativeImageConfig.generate(ProcessArguments.class, ProcessArguments2.class);
+		System.out.println(config);
+
+		checkEntryPoints(config, ProcessArguments.class);
+		checkEntryPoints(config, ProcessArguments2.class);
+		checkContains(config, "\"name\" : \"" + ProcessArguments.Options.class.getName() + "\",\n    \"allDeclaredFields\" : true");
+		checkContains(config, "\"name\" : \"" + ProcessArguments2.SubOptions.class.getName() + "\"");
+		checkContains(config, "\"name\" : \"" + EnumFoo.class.getName() + "\"");
+		checkContains(config, "{ \"name\" : \"values\", \"parameterTypes\" : [] }");
+		checkContains(config, "\"name\" : \"" + ProcessArguments2.UnusedSubOptions.class.getName() + "\"");
+		checkBalanced(config);
+		System.out.println("Configuration is complete");
+	}
+
+	private static void checkEntryPoints(String config, Class<?> clazz) {
+		checkContains(config, "\"name\" : \"" + clazz.getName() + "\",\n    \"queryAllDeclaredMethods\" : true");
+		for(Method m : clazz.getDeclaredMethods()) {
+			if(m.getAnnotation(EntryPoint.class) == null)
+				continue;
+			StringBuilder types = new StringBuilder();
+			for(Class<?> type : m.getParameterTypes())
+				types.append(types.length() == 0 ? " \"" : ", \"").append(type.getTypeName()).append('"');
+			checkContains(config, "{ \"name\" : \"" + m.getName() + "\", \"parameterTypes\" : [" + types + " ] }");
+		}
+	}
+
+	private static void checkContains(String config, String expected) {
+		if(!config.contains(expected))
+			throw new AssertionError("Missing from the configuration: " + expected);
+	}
+
+	private static void checkBalanced(String config) {
+		int depth = 0;
+		for(char c : config.toCharArray()) {
+			if(c == '[' || c == '{')
+				depth++;
+			else if(c == ']' || c == '}')
+				depth--;
+			if(depth < 0)
+				break;
+		}
+		if(depth != 0)
+			throw new AssertionError("Unbalanced configuration");
+	}
+
+}
@@ -0,0 +1,60 @@
+package fr.wonder.commons.tests;
+
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.ThreadMXBean;
+
+import fr.wonder.commons.exceptions.ErrorWrapper.WrappedException;
+import fr.wonder.commons.systems.argparser.ArgParser;
+import fr.wonder.commons.systems.argparser.InvalidDeclarationError;
+
+/**
+ * Measures the memory allocated by {@link ArgParser#parse(String[])} for valid
+ * and invalid commands. Valid commands must not pay for error reporting, they
+ * are expected to allocate much less than invalid ones, which create their
+ * messages and exception.
+ */
+public class ParseAllocationCheck {
+
+	private static final int WARMUP = 50_000;
+	private static final int ITERATIONS = 200_000;
+
+	public static void main(String[] args) throws InvalidDeclarationError {
+		ArgParser parser = new ArgParser("check", ProcessArguments.class);
+		String[] valid = { "test", "--abc", "7", "-bd", "1", "2" };
+		String[] invalid = { "test", "--abc", "x", "-y", "1", "z" };
+
+		long validBytes = measure(parser, valid);
+		long invalidBytes = measure(parser, invalid);
+		System.out.printf("valid command:   %d bytes/parse%n", validBytes);
+		System.out.printf("invalid command: %d bytes/parse%n", invalidBytes);
+		if(validBytes * 4 > invalidBytes)
+			throw new AssertionError("Valid commands allocate too much compared to invalid ones");
+		System.out.println("Valid commands do not allocate errors");
+	}
+
+	private static long measure(ArgParser parser, String[] command) {
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		int failures = 0;
+		for(int i = 0; i < WARMUP; i++)
+			failures += parse(parser, command);
+		long start = threads.getThreadAllocatedBytes(thread);
+		for(int i = 0; i < ITERATIONS; i++)
+			failures += parse(parser, command);
+		long allocated = threads.getThreadAllocatedBytes(thread) - start;
+		if(failures != 0 && failures != WARMUP + ITERATIONS)
+			throw new AssertionError("Inconsistent parsing results");
+		return allocated / ITERATIONS;
+	}
+
+	private static int parse(ArgParser parser, String[] command) {
+		try {
+			parser.parse(command);
+			return 0;
+		} catch (WrappedException e) {
+			return 1;
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+package fr.wonder.commons.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import fr.wonder.commons.exceptions.ErrorWrapper.WrappedException;
+import fr.wonder.commons.systems.argparser.ArgParser;
+import fr.wonder.commons.systems.argparser.InvalidDeclarationError;
+import fr.wonder.commons.systems.argparser.annotations.EntryPoint;
+
+/**
+ * Runs in-process pipelines of commands exchanging objects, including stages
+ * that read a file lazily and stream it to the next command.
+ */
+public class PipelineCheck {
+
+	@EntryPoint(path = "numbers")
+	public static Stream<Integer> numbers(int count) {
+		return IntStream.range(0, count).boxed();
+	}
+
+	@EntryPoint(path = "even")
+	public static Stream<Integer> even(Stream<Integer> in) {
+		return in.filter(i -> i % 2 == 0);
+	}
+
+	@EntryPoint(path = "grep")
+	public static Stream<String> grep(String pattern, Stream<String> in) {
+		return in.filter(line -> line.contains(pattern));
+	}
+
+	@EntryPoint(path = "count")
+	public static int count(Iterator<Object> in) {
+		int count = 0;
+		for(; in.hasNext(); in.next())
+			count++;
+		return count;
+	}
+
+	public static void main(String[] args) throws InvalidDeclarationError, WrappedException, IOException {
+		ArgParser parser = new ArgParser("check", PipelineCheck.class);
+
+		check(parser, "numbers 1000 | even | count", 500);
+
+		File file = File.createTempFile("pipeline", ".txt");
+		file.deleteOnExit();
+		Files.write(file.toPath(), List.of("abc", "def", "bca", "efg"));
+		// the file is read by the stream returned by grep, after the entry point returned
+		check(parser, "grep a " + file.getAbsolutePath() + " | count", 2);
+		check(parser, "grep a " + file.getAbsolutePath() + " | grep b | count", 2);
+
+		// the last command returns a stream, the commands before it run until it is consumed
+		checkStream(parser, "numbers 1000 | even", 500, Long.MAX_VALUE);
+		checkStream(parser, "grep a " + file.getAbsolutePath() + " | grep b", 2, Long.MAX_VALUE);
+		// closed before its end, the commands before it are interrupted
+		checkStream(parser, "numbers 100000000 | even", 10, 10);
+
+		System.out.println("Pipelines stream their results");
+	}
+
+	private static void check(ArgParser parser, String pipeline, Object expected) throws WrappedException {
+		Object result = parser.runPipeline(pipeline);
+		System.out.println(pipeline + " -> " + result);
+		if(!expected.equals(result))
+			throw new AssertionError("Expected " + expected + " from '" + pipeline + "', got " + result);
+	}
+
+	private static void checkStream(ArgParser parser, String pipeline, long expectedCount, long limit) throws WrappedException {
+		long count;
+		try(Stream<?> result = (Stream<?>) parser.runPipeline(pipeline)) {
+			count = result.limit(limit).count();
+		}
+		System.out.println(pipeline + " -> " + count + " elements");
+		if(count != expectedCount)
+			throw new AssertionError("Expected " + expectedCount + " elements from '" + pipeline + "', got " + count);
+	}
+
+}
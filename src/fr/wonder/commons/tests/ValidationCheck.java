@@ -0,0 +1,81 @@
+package fr.wonder.commons.tests;
+
+import java.util.List;
+
+import fr.wonder.commons.exceptions.ErrorWrapper.WrappedException;
+import fr.wonder.commons.systems.argparser.ArgParser;
+import fr.wonder.commons.systems.argparser.CommandDiagnostic;
+import fr.wonder.commons.systems.argparser.CommandDiagnostic.Problem;
+import fr.wonder.commons.systems.argparser.InvalidDeclarationError;
+import fr.wonder.commons.systems.argparser.ParseErrorCode;
+import fr.wonder.commons.systems.argparser.annotations.EntryPoint;
+import fr.wonder.commons.systems.argparser.annotations.Option;
+import fr.wonder.commons.systems.argparser.annotations.OptionClass;
+
+/**
+ * Checks the problems reported for invalid command lines, by
+ * {@link ArgParser#validate(List)} and when they are parsed.
+ */
+public class ValidationCheck {
+
+	@OptionClass
+	public static class Options {
+
+		@Option(name = "--level", shorthand = "-l")
+		public int level;
+		@Option(name = "--verbose", shorthand = "-v")
+		public boolean verbose;
+
+	}
+
+	@EntryPoint(path = "opts")
+	public static void opts(Options options) {}
+
+	@EntryPoint(path = "copy")
+	public static void copy(Options options, String from, String to) {}
+
+	public static void main(String[] args) throws InvalidDeclarationError {
+		ArgParser parser = new ArgParser("check", ValidationCheck.class);
+		parser.setArgumentFilesEnabled(true);
+
+		// the value of a mistyped option is read as an argument, the option must be reported first
+		checkProblem(parser, new String[] { "opts", "--levle", "3" }, ParseErrorCode.UNKNOWN_OPTION, 1, "did you mean --level?");
+		checkProblem(parser, new String[] { "copy", "--levle", "3", "a", "b" }, ParseErrorCode.UNKNOWN_OPTION, 1, "did you mean --level?");
+		checkProblem(parser, new String[] { "copy", "--verbose", "a", "b", "c" }, ParseErrorCode.TOO_MANY_ARGUMENTS, -1, "");
+		// a command whose @argfile is missing here cannot be checked, it must not pass as valid
+		String[] withArgfile = { "copy", "@/nonexistent/copy.args" };
+		checkProblem(parser, withArgfile, ParseErrorCode.ARGUMENT_FILE_MISSING, 1, "");
+		CommandDiagnostic unchecked = parser.validate(List.<String[]>of(withArgfile)).get(0);
+		System.out.println(unchecked);
+		if(unchecked.isValid() || unchecked.isChecked())
+			throw new AssertionError("A command with a missing @argfile was reported as checked");
+		if(!parser.validate(List.<String[]>of(new String[] { "copy", "-l", "3", "a", "b" })).get(0).isValid())
+			throw new AssertionError("'copy -l 3 a b' was reported invalid");
+		// without argument files, arguments starting with @ are literal
+		ArgParser literalParser = new ArgParser("check", ValidationCheck.class);
+		if(!literalParser.validate(List.<String[]>of(new String[] { "copy", "@user", "b" })).get(0).isValid())
+			throw new AssertionError("'copy @user b' was reported invalid without argument files");
+
+		try {
+			parser.parse(new String[] { "opts", "--levle", "3" });
+			throw new AssertionError("'opts --levle 3' was parsed");
+		} catch (WrappedException e) {
+			System.out.println("opts --levle 3 -> " + e.getMessage());
+			if(!e.getMessage().contains("Unknown option: --levle, did you mean --level?"))
+				throw new AssertionError("Unexpected error for 'opts --levle 3': " + e.getMessage());
+		}
+
+		System.out.println("Problems are reported at their words");
+	}
+
+	private static void checkProblem(ArgParser parser, String[] command, ParseErrorCode code, int wordIndex, String detail) {
+		CommandDiagnostic diagnostic = parser.validate(List.<String[]>of(command)).get(0);
+		System.out.println(String.join(" ", command) + " -> " + diagnostic.getProblems());
+		for(Problem problem : diagnostic.getProblems()) {
+			if(problem.getCode() == code && problem.getWordIndex() == wordIndex && problem.getDetail().contains(detail))
+				return;
+		}
+		throw new AssertionError("Expected " + code + " at word " + wordIndex + " for '" + String.join(" ", command) + "'");
+	}
+
+}
@@ -10,5 +10,7 @@ module fr.wonder.commons.systems {
 	opens fr.wonder.commons.tests;
 	
 	requires transitive fr.wonder.commons;
+	requires jdk.jfr;
+	requires jdk.management;
 	
 }